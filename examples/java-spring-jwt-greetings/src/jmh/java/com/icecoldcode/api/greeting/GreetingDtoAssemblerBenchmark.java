@@ -0,0 +1,122 @@
+package com.icecoldcode.api.greeting;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.icecoldcode.core.Entity;
+import com.icecoldcode.core.authentication.internal.AuthUser;
+import com.icecoldcode.core.authentication.internal.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GreetingDtoAssemblerBenchmark {
+
+    private static final int AUTHORS = 100;
+
+    @Param({"10", "10000", "1000000"})
+    private int greetingCount;
+
+    private GreetingDtoAssembler assembler;
+    private GreetingFragments fragments;
+    private ObjectMapper objectMapper;
+    private List<Entity<Greeting>> greetings;
+    // stands in for the response stream, reused so only the writing is measured
+    private ByteArrayOutputStream json;
+
+    @Setup
+    public void setup() throws IOException {
+        Map<Long, Entity<AuthUser>> users = new HashMap<>();
+        for (long id = 1; id <= AUTHORS; id++) {
+            users.put(id, new Entity<>(id, new AuthUser("user" + id, "", "company" + id % 10, Set.of())));
+        }
+        assembler = new GreetingDtoAssembler(new MapUserRepository(users), new SimpleMeterRegistry());
+
+        greetings = new ArrayList<>(greetingCount);
+        for (int id = 1; id <= greetingCount; id++) {
+            greetings.add(new Entity<>(id, new Greeting(id % AUTHORS + 1, "company" + id % 10, "Hello, number " + id)));
+        }
+
+        objectMapper = new ObjectMapper();
+        fragments = new GreetingFragments(assembler, objectMapper, greetingCount, new SimpleMeterRegistry());
+        fragments.writeJsonArray(greetings, OutputStream.nullOutputStream());
+        json = new ByteArrayOutputStream(greetingCount * 128);
+    }
+
+    @Benchmark
+    public List<GreetingDto> toDtos() {
+        return assembler.toDtos(greetings);
+    }
+
+    @Benchmark
+    public byte[] serializeDtos() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(assembler.toDtos(greetings));
+    }
+
+    @Benchmark
+    public int concatenateFragments() throws IOException {
+        json.reset();
+        fragments.writeJsonArray(greetings, json);
+        return json.size();
+    }
+
+    @Benchmark
+    public void toDtoPerGreeting(Blackhole blackhole) {
+        for (var greeting : greetings) {
+            blackhole.consume(assembler.toDto(greeting));
+        }
+    }
+
+    private record MapUserRepository(Map<Long, Entity<AuthUser>> users) implements UserRepository {
+
+        @Override
+        public Optional<Entity<AuthUser>> getById(long id) {
+            return Optional.ofNullable(users.get(id));
+        }
+
+        @Override
+        public Map<Long, Entity<AuthUser>> getByIds(Collection<Long> ids) {
+            Map<Long, Entity<AuthUser>> found = new HashMap<>();
+            for (Long id : ids) {
+                var user = users.get(id);
+                if (user != null) {
+                    found.put(id, user);
+                }
+            }
+            return found;
+        }
+
+        @Override
+        public Optional<Entity<AuthUser>> getByEmail(String email) {
+            return users.values().stream()
+                    .filter(user -> user.value().getUsername().equals(email))
+                    .findFirst();
+        }
+
+        @Override
+        public long save(AuthUser authUser) {
+            long id = users.size() + 1;
+            users.put(id, new Entity<>(id, authUser));
+            return id;
+        }
+
+    }
+
+}
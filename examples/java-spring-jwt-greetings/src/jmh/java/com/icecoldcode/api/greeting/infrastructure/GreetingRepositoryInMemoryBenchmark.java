@@ -0,0 +1,106 @@
+package com.icecoldcode.api.greeting.infrastructure;
+
+import com.icecoldcode.api.greeting.Greeting;
+import com.icecoldcode.core.Entity;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository operations with several threads hitting the same repository.
+ * The mixed and listing groups have readers and writers running at the
+ * same time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GreetingRepositoryInMemoryBenchmark {
+
+    private static final int INITIAL_GREETINGS = 100_000;
+    private static final Greeting GREETING = new Greeting(1, "companyA", "Hello");
+
+    private GreetingRepositoryInMemory repository;
+
+    @Setup
+    public void setup() {
+        repository = new GreetingRepositoryInMemory();
+        for (int i = 0; i < INITIAL_GREETINGS; i++) {
+            repository.create(GREETING);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<Entity<Greeting>> get() {
+        return repository.get(randomId());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long createAndDelete() {
+        var id = repository.create(GREETING);
+        repository.delete(id);
+        return id;
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public Optional<Entity<Greeting>> mixedGet() {
+        return repository.get(randomId());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public long mixedCreateAndDelete() {
+        var id = repository.create(GREETING);
+        repository.delete(id);
+        return id;
+    }
+
+    @Benchmark
+    @Threads(2)
+    @Measurement(iterations = 5, time = 5)
+    public long list() {
+        return sumOfIds(repository.list());
+    }
+
+    @Benchmark
+    @Group("listing")
+    @GroupThreads(2)
+    @Measurement(iterations = 5, time = 5)
+    public long listingList() {
+        return sumOfIds(repository.list());
+    }
+
+    @Benchmark
+    @Group("listing")
+    @GroupThreads(2)
+    @Measurement(iterations = 5, time = 5)
+    public long listingCreateAndDelete() {
+        var id = repository.create(GREETING);
+        repository.delete(id);
+        return id;
+    }
+
+    // goes through the greetings, listing is only done when they are read
+    private static long sumOfIds(Collection<Entity<Greeting>> greetings) {
+        long sum = 0;
+        for (var greeting : greetings) {
+            sum += greeting.id();
+        }
+        return sum;
+    }
+
+    private static long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, INITIAL_GREETINGS + 1);
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.icecoldcode.core.authentication.internal;
+
+import com.icecoldcode.core.authentication.AuthoritiesCodec;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthoritiesBenchmark {
+
+    private String encodedAuthorities;
+    private int roles;
+    private Collection<? extends GrantedAuthority> authorities;
+    private Principal principal;
+
+    @Setup
+    public void setup() {
+        var authUser = new AuthUser("user", "", "companyA", Set.of("ROLE_USER", "ROLE_ADMIN"));
+        authorities = authUser.getAuthorities();
+        encodedAuthorities = AuthoritiesCodec.toString(authorities);
+        roles = authUser.getRoles();
+        principal = new Principal(1, "companyA", authorities, Instant.now(), Instant.now());
+    }
+
+    @Benchmark
+    public Set<GrantedAuthority> authoritiesFromString() {
+        return AuthoritiesCodec.fromString(encodedAuthorities);
+    }
+
+    @Benchmark
+    public String authoritiesToString() {
+        return AuthoritiesCodec.toString(authorities);
+    }
+
+    @Benchmark
+    public Set<GrantedAuthority> authoritiesFromBits() {
+        return AuthoritiesCodec.fromBits(roles);
+    }
+
+    @Benchmark
+    public int authoritiesToBits() {
+        return AuthoritiesCodec.toBits(authorities);
+    }
+
+    @Benchmark
+    public boolean principalIsAdmin() {
+        return principal.isAdmin();
+    }
+
+}
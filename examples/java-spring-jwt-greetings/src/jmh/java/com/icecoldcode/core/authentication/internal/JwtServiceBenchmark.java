@@ -0,0 +1,86 @@
+package com.icecoldcode.core.authentication.internal;
+
+import com.icecoldcode.core.Clock;
+import com.icecoldcode.core.Entity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET_KEY = "3cfa76ef14937c1c0ea519f8fc057a80fcd04a7420f8e8bcd0a7567c272e007b";
+    private static final int DISTINCT_TOKENS = 1024;
+
+    private Principal principal;
+    private JwtService jwtService;
+    private Cookie[] cookies;
+
+    // a cache of one entry, cycling through many tokens, always misses
+    private JwtService uncachedJwtService;
+    private Cookie[][] distinctCookies;
+    private int next;
+
+    @Setup
+    public void setup() {
+        var clock = new Clock();
+        var principalFactory = new PrincipalFactory(clock);
+        ReflectionTestUtils.setField(principalFactory, "jwtExpirationMinutes", 60L);
+
+        jwtService = createJwtService(clock, 10_000);
+        uncachedJwtService = createJwtService(clock, 1);
+
+        principal = principalFactory.fromAuthUser(createUser(1));
+        cookies = new Cookie[]{jwtService.generateJwtCookie(principal)};
+
+        distinctCookies = new Cookie[DISTINCT_TOKENS][];
+        for (int i = 0; i < DISTINCT_TOKENS; i++) {
+            distinctCookies[i] = new Cookie[]{
+                    jwtService.generateJwtCookie(principalFactory.fromAuthUser(createUser(i + 1)))
+            };
+        }
+    }
+
+    @Benchmark
+    public Cookie generateJwtCookie() {
+        return jwtService.generateJwtCookie(principal);
+    }
+
+    @Benchmark
+    public Optional<Principal> principalFromCookie() {
+        return jwtService.principalFromCookie(cookies);
+    }
+
+    @Benchmark
+    public Optional<Principal> principalFromCookieNotCached() {
+        next = (next + 1) % DISTINCT_TOKENS;
+        return uncachedJwtService.principalFromCookie(distinctCookies[next]);
+    }
+
+    private static JwtService createJwtService(Clock clock, int tokenCacheSize) {
+        var jwtService = new JwtService(
+                clock,
+                new VerifiedTokenCache(clock, tokenCacheSize),
+                new TokenRevocations(clock, 60, 10000, new SimpleMeterRegistry()),
+                new SimpleMeterRegistry()
+        );
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET_KEY);
+        ReflectionTestUtils.setField(jwtService, "jwtExpirationMinutes", 60L);
+        return jwtService;
+    }
+
+    private static Entity<AuthUser> createUser(long id) {
+        return new Entity<>(id, new AuthUser("user" + id, "", "companyA", Set.of("ROLE_USER", "ROLE_ADMIN")));
+    }
+
+}
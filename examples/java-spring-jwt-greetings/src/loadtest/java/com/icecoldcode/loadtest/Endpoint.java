@@ -0,0 +1,20 @@
+package com.icecoldcode.loadtest;
+
+enum Endpoint {
+
+    LOGIN("POST /auth"),
+    CREATE("POST /api/v1/greetings"),
+    LIST("GET /api/v1/greetings"),
+    DELETE("DELETE /api/v1/greetings/{id}");
+
+    private final String description;
+
+    Endpoint(String description) {
+        this.description = description;
+    }
+
+    String description() {
+        return description;
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.icecoldcode.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and errors per endpoint, recorded from many threads at once.
+ */
+final class LatencyReport {
+
+    private final Map<Endpoint, Histogram> latencies = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+    private volatile Duration elapsed = Duration.ZERO;
+
+    LatencyReport() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            latencies.put(endpoint, new ConcurrentHistogram(3));
+            errors.put(endpoint, new LongAdder());
+        }
+    }
+
+    void record(Endpoint endpoint, long latencyNanos, boolean success) {
+        latencies.get(endpoint).recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        if (!success) {
+            errors.get(endpoint).increment();
+        }
+    }
+
+    void finish(Duration elapsed) {
+        this.elapsed = elapsed;
+    }
+
+    long totalRequests() {
+        long total = 0;
+        for (Endpoint endpoint : Endpoint.values()) {
+            total += requests(endpoint);
+        }
+        return total;
+    }
+
+    double totalThroughput() {
+        return elapsed.isZero() ? 0 : totalRequests() * 1000.0 / elapsed.toMillis();
+    }
+
+    long requests(Endpoint endpoint) {
+        return latencies.get(endpoint).getTotalCount();
+    }
+
+    double throughput(Endpoint endpoint) {
+        return elapsed.isZero() ? 0 : requests(endpoint) * 1000.0 / elapsed.toMillis();
+    }
+
+    /**
+     * @return latency in milliseconds at the percentile, e.g. 99.9
+     */
+    double percentile(Endpoint endpoint, double percentile) {
+        return latencies.get(endpoint).getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    void print(PrintStream out) {
+        out.printf("%-32s %10s %8s %10s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Endpoint endpoint : Endpoint.values()) {
+            var histogram = latencies.get(endpoint);
+            out.printf("%-32s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                    endpoint.description(),
+                    histogram.getTotalCount(),
+                    errors.get(endpoint).sum(),
+                    throughput(endpoint),
+                    percentile(endpoint, 50),
+                    percentile(endpoint, 99),
+                    percentile(endpoint, 99.9),
+                    histogram.getMaxValue() / 1000.0);
+        }
+        out.printf("%d requests in %.1f s, %.1f req/s%n",
+                totalRequests(), elapsed.toMillis() / 1000.0, totalThroughput());
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.icecoldcode.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs every simulated user on a virtual thread of its own, so thousands of
+ * concurrent users fit in one JVM.
+ */
+final class LoadGenerator {
+
+    private static final int COMPANIES = 10;
+    private static final int ADMIN_EVERY = 20;
+
+    private final URI baseUri;
+    private final LoadTestOptions options;
+
+    LoadGenerator(URI baseUri, LoadTestOptions options) {
+        this.baseUri = baseUri;
+        this.options = options;
+    }
+
+    LatencyReport run() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .executor(executor)
+                    .build();
+
+            var users = signUp(client, executor);
+            System.out.printf("Driving %d users for %d s with mix %s%n",
+                    users.size(), options.duration().toSeconds(), options.mix());
+
+            var report = new LatencyReport();
+            var start = System.nanoTime();
+            var deadline = start + options.duration().toNanos();
+
+            List<Future<?>> running = new ArrayList<>(users.size());
+            var seeds = new SplittableRandom(42);
+            for (SimulatedUser user : users) {
+                var random = seeds.split();
+                running.add(executor.submit(() -> {
+                    drive(user, random, deadline, report);
+                    return null;
+                }));
+            }
+            for (Future<?> future : running) {
+                future.get();
+            }
+
+            report.finish(Duration.ofNanos(System.nanoTime() - start));
+            return report;
+        }
+    }
+
+    private List<SimulatedUser> signUp(HttpClient client, ExecutorService executor) throws Exception {
+        var runId = Long.toString(System.currentTimeMillis(), 36);
+        List<SimulatedUser> users = new ArrayList<>(options.users());
+        for (int i = 0; i < options.users(); i++) {
+            users.add(new SimulatedUser(
+                    client,
+                    baseUri,
+                    "loadtest-" + runId + "-" + i,
+                    "loadtest-company-" + (i % COMPANIES),
+                    i % ADMIN_EVERY == 0
+            ));
+        }
+
+        List<Future<Boolean>> signedUp = new ArrayList<>(users.size());
+        for (SimulatedUser user : users) {
+            signedUp.add(executor.submit(() -> user.register() && user.login()));
+        }
+        for (Future<Boolean> future : signedUp) {
+            if (!future.get()) {
+                throw new IllegalStateException("could not register and log in all users");
+            }
+        }
+        return users;
+    }
+
+    private void drive(SimulatedUser user,
+                       SplittableRandom random,
+                       long deadline,
+                       LatencyReport report) throws InterruptedException {
+        while (System.nanoTime() < deadline) {
+            var endpoint = options.mix().pick(random);
+            var start = System.nanoTime();
+            try {
+                var outcome = user.perform(endpoint);
+                report.record(outcome.endpoint(), System.nanoTime() - start, outcome.success());
+            } catch (IOException e) {
+                report.record(endpoint, System.nanoTime() - start, false);
+            }
+
+            if (!options.thinkTime().isZero()) {
+                Thread.sleep(options.thinkTime());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.icecoldcode.loadtest;
+
+/**
+ * Starts the application, unless {@code --target} points at a running one,
+ * and drives it through the real security filter chain with a mix of
+ * requests from many simulated users. Prints throughput and latency
+ * percentiles per endpoint.
+ *
+ * @see LoadTestOptions
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = LoadTestOptions.parse(args);
+
+        try (var application = options.target() == null
+                ? RunningApplication.start(options.applicationArgs())
+                : RunningApplication.external(options.target())) {
+            new LoadGenerator(application.baseUri(), options)
+                    .run()
+                    .print(System.out);
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.icecoldcode.loadtest;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Options are passed as {@code --name=value}. Anything not recognised here
+ * is handed to the application, e.g. {@code --spring.threads.virtual.enabled=true}.
+ *
+ * @param target          an already running instance to drive, instead of starting one
+ * @param users           simulated users, each with a login of its own
+ * @param duration        how long to drive traffic, after registering and logging in the users
+ * @param thinkTime       pause of each user between two requests
+ * @param mix             relative weights of the endpoints
+ * @param applicationArgs arguments for the application started in process
+ */
+record LoadTestOptions(URI target,
+                       int users,
+                       Duration duration,
+                       Duration thinkTime,
+                       RequestMix mix,
+                       List<String> applicationArgs) {
+
+    static LoadTestOptions parse(String... args) {
+        URI target = null;
+        int users = 200;
+        Duration duration = Duration.ofSeconds(30);
+        Duration thinkTime = Duration.ZERO;
+        RequestMix mix = RequestMix.parse("login=1,create=4,list=30,delete=2");
+        List<String> applicationArgs = new ArrayList<>();
+
+        for (String arg : args) {
+            if (arg.isBlank()) {
+                continue;
+            }
+            var separator = arg.indexOf('=');
+            var name = separator < 0 ? arg : arg.substring(0, separator);
+            var value = separator < 0 ? "" : arg.substring(separator + 1);
+
+            switch (name) {
+                case "--target" -> target = URI.create(value);
+                case "--users" -> users = Integer.parseInt(value);
+                case "--duration" -> duration = Duration.ofSeconds(Long.parseLong(value));
+                case "--think-time-ms" -> thinkTime = Duration.ofMillis(Long.parseLong(value));
+                case "--mix" -> mix = RequestMix.parse(value);
+                default -> applicationArgs.add(arg);
+            }
+        }
+
+        return new LoadTestOptions(target, users, duration, thinkTime, mix, applicationArgs);
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.icecoldcode.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * Relative weights of the endpoints, e.g. {@code login=1,create=4,list=30,delete=2}.
+ */
+record RequestMix(Map<Endpoint, Integer> weights, int totalWeight) {
+
+    static RequestMix parse(String mix) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String part : mix.split(",")) {
+            var keyAndWeight = part.split("=");
+            if (keyAndWeight.length != 2) {
+                throw new IllegalArgumentException("expected endpoint=weight, got " + part);
+            }
+            weights.put(
+                    Endpoint.valueOf(keyAndWeight[0].trim().toUpperCase()),
+                    Integer.parseInt(keyAndWeight[1].trim())
+            );
+        }
+
+        var totalWeight = weights.values().stream().mapToInt(Integer::intValue).sum();
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("mix must have a positive weight");
+        }
+        return new RequestMix(weights, totalWeight);
+    }
+
+    Endpoint pick(RandomGenerator random) {
+        var remaining = random.nextInt(totalWeight);
+        for (var weight : weights.entrySet()) {
+            remaining -= weight.getValue();
+            if (remaining < 0) {
+                return weight.getKey();
+            }
+        }
+        throw new IllegalStateException("weights do not add up");
+    }
+
+    @Override
+    public String toString() {
+        return weights.toString();
+    }
+
+}
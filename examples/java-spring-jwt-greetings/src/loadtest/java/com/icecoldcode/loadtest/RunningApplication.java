@@ -0,0 +1,51 @@
+package com.icecoldcode.loadtest;
+
+import com.icecoldcode.Application;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The application under test, either started in this JVM on a random port
+ * or running elsewhere.
+ */
+final class RunningApplication implements AutoCloseable {
+
+    private final URI baseUri;
+    private final ConfigurableApplicationContext context;
+
+    private RunningApplication(URI baseUri, ConfigurableApplicationContext context) {
+        this.baseUri = baseUri;
+        this.context = context;
+    }
+
+    static RunningApplication start(List<String> applicationArgs) {
+        List<String> args = new ArrayList<>(applicationArgs);
+        args.add("--server.port=0");
+
+        var context = new SpringApplicationBuilder(Application.class, SimulatedRepositoryLatency.class)
+                .run(args.toArray(String[]::new));
+        var port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        return new RunningApplication(URI.create("http://localhost:" + port), context);
+    }
+
+    static RunningApplication external(URI baseUri) {
+        return new RunningApplication(baseUri, null);
+    }
+
+    URI baseUri() {
+        return baseUri;
+    }
+
+    @Override
+    public void close() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.icecoldcode.loadtest;
+
+import com.icecoldcode.api.greeting.GreetingsRepository;
+import com.icecoldcode.core.authentication.internal.UserRepository;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+
+/**
+ * Makes every repository call sleep first, standing in for repositories
+ * backed by blocking I/O. Enabled by {@code --simulated.repository-latency-ms}.
+ * <p>
+ * Deliberately not a component: only the load test registers it.
+ */
+class SimulatedRepositoryLatency implements BeanPostProcessor, EnvironmentAware {
+
+    static final String PROPERTY = "simulated.repository-latency-ms";
+
+    private Duration latency = Duration.ZERO;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        latency = Duration.ofMillis(environment.getProperty(PROPERTY, Long.class, 0L));
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (latency.isZero()) {
+            return bean;
+        }
+        if (bean instanceof GreetingsRepository) {
+            return withLatency(GreetingsRepository.class, bean);
+        }
+        if (bean instanceof UserRepository) {
+            return withLatency(UserRepository.class, bean);
+        }
+        return bean;
+    }
+
+    private Object withLatency(Class<?> repositoryInterface, Object repository) {
+        return Proxy.newProxyInstance(
+                repositoryInterface.getClassLoader(),
+                ClassUtils.getAllInterfaces(repository),
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == repositoryInterface) {
+                        Thread.sleep(latency);
+                    }
+                    try {
+                        return method.invoke(repository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+        );
+    }
+
+}
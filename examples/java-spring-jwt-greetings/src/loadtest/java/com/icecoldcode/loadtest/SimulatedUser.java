@@ -0,0 +1,117 @@
+package com.icecoldcode.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A user with a jwt cookie of its own, driven by a single thread.
+ * The cookie is handled by hand, as the server marks it secure and the
+ * load test talks plain http.
+ */
+final class SimulatedUser {
+
+    private static final String JWT_COOKIE_NAME = "jwt";
+
+    private final HttpClient client;
+    private final URI baseUri;
+    private final String username;
+    private final String password;
+    private final String companyId;
+    private final boolean admin;
+    private final Deque<Long> ownGreetings = new ArrayDeque<>();
+    private String jwt;
+
+    SimulatedUser(HttpClient client, URI baseUri, String username, String companyId, boolean admin) {
+        this.client = client;
+        this.baseUri = baseUri;
+        this.username = username;
+        this.password = "loadtest";
+        this.companyId = companyId;
+        this.admin = admin;
+    }
+
+    boolean register() throws IOException, InterruptedException {
+        var response = send(post("/auth/users", """
+                {"username":"%s","password":"%s","companyId":"%s","roles":[%s]}"""
+                .formatted(username, password, companyId, admin ? "\"ROLE_ADMIN\"" : "")));
+        return response.statusCode() == 201;
+    }
+
+    /**
+     * Performs a request against the endpoint. A delete without an own
+     * greeting to delete creates one instead.
+     *
+     * @return the endpoint that was actually requested, and whether it succeeded
+     */
+    Outcome perform(Endpoint endpoint) throws IOException, InterruptedException {
+        return switch (endpoint) {
+            case LOGIN -> new Outcome(endpoint, login());
+            case CREATE -> new Outcome(endpoint, createGreeting());
+            case LIST -> new Outcome(endpoint, listGreetings());
+            case DELETE -> ownGreetings.isEmpty()
+                    ? new Outcome(Endpoint.CREATE, createGreeting())
+                    : new Outcome(endpoint, deleteGreeting());
+        };
+    }
+
+    boolean login() throws IOException, InterruptedException {
+        var response = send(post("/auth", """
+                {"username":"%s","password":"%s"}""".formatted(username, password)));
+        return response.statusCode() == 200 && jwt != null;
+    }
+
+    private boolean createGreeting() throws IOException, InterruptedException {
+        var response = send(post("/api/v1/greetings", """
+                {"message":"Hello from %s"}""".formatted(username)));
+        if (response.statusCode() != 200) {
+            return false;
+        }
+        ownGreetings.push(Long.parseLong(response.body().trim()));
+        return true;
+    }
+
+    private boolean listGreetings() throws IOException, InterruptedException {
+        return send(request("/api/v1/greetings").GET()).statusCode() == 200;
+    }
+
+    private boolean deleteGreeting() throws IOException, InterruptedException {
+        var id = ownGreetings.pop();
+        return send(request("/api/v1/greetings/" + id).DELETE()).statusCode() == 204;
+    }
+
+    private HttpRequest.Builder post(String path, String json) {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    private HttpRequest.Builder request(String path) {
+        var builder = HttpRequest.newBuilder(baseUri.resolve(path))
+                .header("Accept", "application/json");
+        if (jwt != null) {
+            builder.header("Cookie", JWT_COOKIE_NAME + "=" + jwt);
+        }
+        return builder;
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        var response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        for (String setCookie : response.headers().allValues("Set-Cookie")) {
+            if (setCookie.startsWith(JWT_COOKIE_NAME + "=")) {
+                var end = setCookie.indexOf(';');
+                var value = setCookie.substring(JWT_COOKIE_NAME.length() + 1, end < 0 ? setCookie.length() : end);
+                jwt = value.isEmpty() ? null : value;
+            }
+        }
+        return response;
+    }
+
+    record Outcome(Endpoint endpoint, boolean success) {
+    }
+
+}
@@ -0,0 +1,151 @@
+package com.icecoldcode.loadtest;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the application cold, in a JVM of its own, again and again, and
+ * measures the time from starting the process to the first successful
+ * {@code GET /api/v1/greetings}. Compares the plain jar with the extracted
+ * jar started with Spring AOT and the class data sharing archive, taking
+ * turns so both see the same machine conditions.
+ * <p>
+ * Options are passed as {@code --name=value}:
+ * {@code --java} the java executable, {@code --jar} the boot jar,
+ * {@code --cds-directory} the directory the jar was extracted to, with
+ * {@code application.jsa} in it, and {@code --runs} starts per variant
+ * (default 10).
+ */
+public final class StartupBenchmark {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(5);
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String java = "java";
+        Path jar = null;
+        Path cdsDirectory = null;
+        int runs = 10;
+        for (String arg : args) {
+            var separator = arg.indexOf('=');
+            var name = separator < 0 ? arg : arg.substring(0, separator);
+            var value = separator < 0 ? "" : arg.substring(separator + 1);
+            switch (name) {
+                case "--java" -> java = value;
+                case "--jar" -> jar = Path.of(value);
+                case "--cds-directory" -> cdsDirectory = Path.of(value);
+                case "--runs" -> runs = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("unknown option " + arg);
+            }
+        }
+        if (jar == null || cdsDirectory == null) {
+            throw new IllegalArgumentException("--jar and --cds-directory are required");
+        }
+
+        Map<String, List<String>> variants = new LinkedHashMap<>();
+        variants.put("jar", List.of(
+                java,
+                "-Dspring.profiles.active=dev",
+                "-jar", jar.toString()
+        ));
+        variants.put("aot+cds", List.of(
+                java,
+                "-XX:SharedArchiveFile=" + cdsDirectory.resolve("application.jsa"),
+                "-Dspring.aot.enabled=true",
+                "-Dspring.profiles.active=dev",
+                "-jar", cdsDirectory.resolve(jar.getFileName()).toString()
+        ));
+        for (var command : variants.values()) {
+            var file = Path.of(command.get(command.size() - 1));
+            if (!Files.exists(file)) {
+                throw new IllegalArgumentException("missing " + file);
+            }
+        }
+
+        var client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+        Map<String, List<Duration>> results = new LinkedHashMap<>();
+        variants.keySet().forEach(variant -> results.put(variant, new ArrayList<>()));
+
+        for (int run = 1; run <= runs; run++) {
+            for (var variant : variants.entrySet()) {
+                var elapsed = timeToFirstList(variant.getValue(), client);
+                results.get(variant.getKey()).add(elapsed);
+                System.out.printf("run %d %-8s %6d ms%n", run, variant.getKey(), elapsed.toMillis());
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-8s %8s %8s %8s %8s  (ms to first greeting list)%n", "variant", "min", "median", "p90", "max");
+        for (var result : results.entrySet()) {
+            var sorted = result.getValue().stream().sorted().toList();
+            System.out.printf("%-8s %8d %8d %8d %8d%n",
+                    result.getKey(),
+                    sorted.get(0).toMillis(),
+                    sorted.get(sorted.size() / 2).toMillis(),
+                    sorted.get((int) Math.ceil(sorted.size() * 0.9) - 1).toMillis(),
+                    sorted.get(sorted.size() - 1).toMillis());
+        }
+    }
+
+    private static Duration timeToFirstList(List<String> command, HttpClient client) throws Exception {
+        var port = freePort();
+        List<String> withPort = new ArrayList<>(command);
+        withPort.add("--server.port=" + port);
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/greetings"))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+
+        var start = System.nanoTime();
+        var process = new ProcessBuilder(withPort)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            while (System.nanoTime() - start < STARTUP_TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("application exited with " + process.exitValue());
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return Duration.ofNanos(System.nanoTime() - start);
+                    }
+                } catch (ConnectException e) {
+                    // not listening yet
+                }
+                Thread.sleep(POLL_INTERVAL.toMillis());
+            }
+            throw new IllegalStateException("application did not answer within " + STARTUP_TIMEOUT);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+}
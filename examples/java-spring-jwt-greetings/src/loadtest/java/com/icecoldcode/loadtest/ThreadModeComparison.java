@@ -0,0 +1,65 @@
+package com.icecoldcode.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the same load twice, once with requests served on Tomcat's platform
+ * thread pool and once on virtual threads, with every repository call
+ * slowed down as if it did blocking I/O. Prints throughput and tail latency
+ * of both side by side.
+ * <p>
+ * Takes the options of {@link LoadTest}, plus
+ * {@code --simulated.repository-latency-ms} (default 20).
+ */
+public final class ThreadModeComparison {
+
+    private ThreadModeComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--users=1000",
+                "--" + SimulatedRepositoryLatency.PROPERTY + "=20"
+        ));
+        arguments.addAll(Arrays.asList(args));
+
+        Map<String, LatencyReport> reports = new LinkedHashMap<>();
+        for (var virtual : List.of(false, true)) {
+            List<String> modeArguments = new ArrayList<>(arguments);
+            modeArguments.add("--spring.threads.virtual.enabled=" + virtual);
+
+            var options = LoadTestOptions.parse(modeArguments.toArray(String[]::new));
+            try (var application = RunningApplication.start(options.applicationArgs())) {
+                var report = new LoadGenerator(application.baseUri(), options).run();
+                reports.put(virtual ? "virtual" : "platform", report);
+            }
+        }
+
+        for (var report : reports.entrySet()) {
+            System.out.println();
+            System.out.println("== " + report.getKey() + " threads");
+            report.getValue().print(System.out);
+        }
+
+        System.out.println();
+        System.out.printf("%-32s %12s %12s %12s %12s%n",
+                "endpoint", "platform p99", "virtual p99", "platform p99.9", "virtual p99.9");
+        var platform = reports.get("platform");
+        var virtual = reports.get("virtual");
+        for (Endpoint endpoint : Endpoint.values()) {
+            System.out.printf("%-32s %12.2f %12.2f %12.2f %12.2f%n",
+                    endpoint.description(),
+                    platform.percentile(endpoint, 99),
+                    virtual.percentile(endpoint, 99),
+                    platform.percentile(endpoint, 99.9),
+                    virtual.percentile(endpoint, 99.9));
+        }
+        System.out.printf("%-32s %12.1f %12.1f  (req/s)%n",
+                "throughput", platform.totalThroughput(), virtual.totalThroughput());
+    }
+
+}
@@ -2,7 +2,6 @@ package com.icecoldcode;
 
 import com.icecoldcode.api.greeting.Greeting;
 import com.icecoldcode.api.greeting.GreetingsRepository;
-import com.icecoldcode.core.authentication.CreateAuthUserDto;
 import com.icecoldcode.core.authentication.internal.AuthenticationService;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -12,19 +11,26 @@ import java.util.Set;
 @SpringBootApplication
 public class Application {
 
+    // BCrypt of "test", hashing it on every start would take a good part of startup
+    static final String TEST_PASSWORD_HASH = "$2a$10$PmxeV8755NLA9lceqUvere5TcxkLP/iJdN79Q9gWbVUa9m7qunV0K";
+
     public Application(AuthenticationService authenticationService,
                        GreetingsRepository greetingsRepository) {
-        // test data
-        authenticationService.createUser(new CreateAuthUserDto(
-                "test",
-                "test",
-                "test",
-                Set.of("ROLE_ADMIN")
-        ));
-
-        greetingsRepository.create(new Greeting(1,
-                "Hello, I hope you are well! I wish you a very pleasant evening."
-        ));
+        // test data, which may have been kept from an earlier run
+        if (!authenticationService.userExists("test")) {
+            authenticationService.createUserWithEncodedPassword(
+                    "test",
+                    TEST_PASSWORD_HASH,
+                    "test",
+                    Set.of("ROLE_ADMIN")
+            );
+        }
+
+        if (greetingsRepository.listAfter(0, 1).isEmpty()) {
+            greetingsRepository.create(new Greeting(1, "test",
+                    "Hello, I hope you are well! I wish you a very pleasant evening."
+            ));
+        }
     }
 
     public static void main(String[] args) {
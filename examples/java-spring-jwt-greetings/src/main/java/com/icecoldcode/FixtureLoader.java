@@ -0,0 +1,184 @@
+package com.icecoldcode;
+
+import com.icecoldcode.api.greeting.Greeting;
+import com.icecoldcode.api.greeting.GreetingsRepository;
+import com.icecoldcode.core.authentication.internal.AuthUser;
+import com.icecoldcode.core.authentication.internal.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongConsumer;
+
+/**
+ * Fills the repositories with synthetic companies, users and greetings for
+ * scale testing, when the {@code fixtures} profile is active. Loading is
+ * done before the server takes requests, straight into the repositories and
+ * on several threads, and the time taken and heap used are logged. The heap
+ * is read as it is, without forcing a collection, so the figure includes
+ * garbage left from loading.
+ * <p>
+ * User {@code n} is {@code fixture-n} in company {@code fixture-company-(n % companies)},
+ * with the password "test". Greeting {@code n} gets its author and message
+ * from the seed and {@code n} alone, so the same settings give the same
+ * data, although which ids things get depends on how the threads interleave.
+ * A few users write most greetings, like in real life.
+ */
+@Component
+@Profile("fixtures")
+class FixtureLoader implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(FixtureLoader.class);
+    private static final int BATCH_SIZE = 1000;
+    private static final String[] WORDS = {
+            "hello", "good", "morning", "evening", "hope", "you", "are", "well", "thanks",
+            "for", "the", "help", "today", "have", "a", "great", "weekend", "see", "soon",
+            "welcome", "to", "team", "congratulations", "on", "launch", "happy", "birthday"
+    };
+
+    private final UserRepository userRepository;
+    private final GreetingsRepository greetingsRepository;
+    private final int companies;
+    private final int users;
+    private final long greetings;
+    private final long seed;
+    private final int threads;
+
+    FixtureLoader(UserRepository userRepository,
+                  GreetingsRepository greetingsRepository,
+                  @Value("${fixtures.companies:100}") int companies,
+                  @Value("${fixtures.users:100000}") int users,
+                  @Value("${fixtures.greetings:1000000}") long greetings,
+                  @Value("${fixtures.seed:1}") long seed,
+                  @Value("${fixtures.threads:0}") int threads) {
+        if (companies < 1 || users < 1) {
+            throw new IllegalArgumentException("fixtures need at least one company and user");
+        }
+        if (greetings < 0) {
+            throw new IllegalArgumentException("fixtures.greetings must not be negative");
+        }
+        this.userRepository = userRepository;
+        this.greetingsRepository = greetingsRepository;
+        this.companies = companies;
+        this.users = users;
+        this.greetings = greetings;
+        this.seed = seed;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        // kept by a file or log store from an earlier run
+        if (userRepository.getByEmail(username(0)).isPresent()) {
+            logger.info("Fixtures already loaded, not loading them again");
+            return;
+        }
+
+        var start = System.nanoTime();
+
+        var userIds = new long[users];
+        inParallel(users, n -> userIds[(int) n] = userRepository.save(new AuthUser(
+                username(n),
+                Application.TEST_PASSWORD_HASH,
+                company(n),
+                Set.of("ROLE_USER")
+        )));
+        var usersLoaded = System.nanoTime();
+
+        inParallel((greetings + BATCH_SIZE - 1) / BATCH_SIZE, batch -> {
+            var from = batch * BATCH_SIZE;
+            var to = Math.min(greetings, from + BATCH_SIZE);
+            List<Greeting> created = new ArrayList<>((int) (to - from));
+            for (var n = from; n < to; n++) {
+                var random = mix(seed ^ mix(n));
+                // squaring a uniform fraction favours the first users
+                var fraction = (random >>> 11) * 0x1.0p-53;
+                var author = (int) (fraction * fraction * users);
+                created.add(new Greeting(userIds[author], company(author), message(random)));
+            }
+            greetingsRepository.createAll(created);
+        });
+        var end = System.nanoTime();
+
+        var heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        logger.info("Loaded {} companies, {} users in {} ms and {} greetings in {} ms, heap used {} MB of {} MB committed",
+                companies,
+                users,
+                Duration.ofNanos(usersLoaded - start).toMillis(),
+                greetings,
+                Duration.ofNanos(end - usersLoaded).toMillis(),
+                heap.getUsed() >> 20,
+                heap.getCommitted() >> 20);
+    }
+
+    /**
+     * Runs {@code task} for {@code 0} up to {@code count}, spread over the
+     * threads in contiguous ranges.
+     */
+    private void inParallel(long count, LongConsumer task) {
+        var chunk = (count + threads - 1) / threads;
+        try (var executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> ranges = new ArrayList<>();
+            for (long from = 0; from < count; from += chunk) {
+                var start = from;
+                var end = Math.min(count, from + chunk);
+                ranges.add(executor.submit(() -> {
+                    for (var n = start; n < end; n++) {
+                        task.accept(n);
+                    }
+                }));
+            }
+            for (Future<?> range : ranges) {
+                range.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted loading fixtures", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("failed loading fixtures", e.getCause());
+        }
+    }
+
+    private String company(long user) {
+        return "fixture-company-" + (user % companies);
+    }
+
+    private static String username(long user) {
+        return "fixture-" + user;
+    }
+
+    private static String message(long random) {
+        var words = 3 + (int) ((random >>> 8) % 20);
+        var message = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            random = mix(random);
+            if (i > 0) {
+                message.append(' ');
+            }
+            message.append(WORDS[(int) ((random >>> 1) % WORDS.length)]);
+        }
+        return message.toString();
+    }
+
+    // the finalizer of MurmurHash3, cheap and spreads consecutive numbers well
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.icecoldcode;
+
+import com.icecoldcode.api.greeting.GreetingsRepository;
+import com.icecoldcode.core.authentication.internal.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times every call to the repositories as {@code repository.calls},
+ * tagged with the repository and the method called.
+ */
+@Component
+class RepositoryMetrics implements BeanPostProcessor {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    RepositoryMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof GreetingsRepository) {
+            return timed(GreetingsRepository.class, bean);
+        }
+        if (bean instanceof UserRepository) {
+            return timed(UserRepository.class, bean);
+        }
+        return bean;
+    }
+
+    private Object timed(Class<?> repositoryInterface, Object repository) {
+        Map<Method, Timer> timers = new ConcurrentHashMap<>();
+        // all interfaces, so a repository still gets closed on shutdown
+        return Proxy.newProxyInstance(
+                repositoryInterface.getClassLoader(),
+                ClassUtils.getAllInterfaces(repository),
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() != repositoryInterface) {
+                        return invoke(method, repository, args);
+                    }
+                    var timer = timers.computeIfAbsent(method, m -> Timer.builder("repository.calls")
+                            .tag("repository", repositoryInterface.getSimpleName())
+                            .tag("method", m.getName())
+                            .register(meterRegistry.getObject()));
+                    var sample = Timer.start();
+                    try {
+                        return invoke(method, repository, args);
+                    } finally {
+                        sample.stop(timer);
+                    }
+                }
+        );
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+}
@@ -2,9 +2,14 @@ package com.icecoldcode.api.greeting;
 
 import java.util.Objects;
 
-public record Greeting(long authorId, String message) {
+/**
+ * @param companyId company of the author, kept with the greeting so greetings
+ *                  can be partitioned by company
+ */
+public record Greeting(long authorId, String companyId, String message) {
 
     public Greeting {
+        Objects.requireNonNull(companyId);
         Objects.requireNonNull(message);
     }
 
@@ -2,7 +2,6 @@ package com.icecoldcode.api.greeting;
 
 import com.icecoldcode.core.Entity;
 import com.icecoldcode.core.authentication.internal.Principal;
-import com.icecoldcode.core.authentication.internal.UserRepository;
 import org.springframework.stereotype.Service;
 
 import java.util.function.Predicate;
@@ -10,22 +9,25 @@ import java.util.function.Predicate;
 @Service
 public class GreetingAuthorizationService {
 
-    private final UserRepository userRepository;
-
-    public GreetingAuthorizationService(UserRepository userRepository) {
-        this.userRepository = userRepository;
-    }
-
     public Predicate<Entity<Greeting>> canDelete(Principal principal) {
-        return greeting -> userRepository.getById(greeting.value().authorId())
-                .map(authUserEntity -> {
-                    if (!authUserEntity.value().getCompanyId().equals(principal.companyId())) {
-                        return false;
-                    }
+        return greeting -> {
+            if (!greeting.value().companyId().equals(principal.companyId())) {
+                return false;
+            }
+
+            return principal.isAdmin()
+                    || greeting.value().authorId() == principal.userId();
+        };
+    }
 
-                    return principal.isAdmin()
-                            || greeting.value().authorId() == principal.userId();
-                }).orElse(false);
+    /**
+     * Whether the principal may delete all greetings of the author of the
+     * given greeting at once. An author never changes company, so checking
+     * one of their greetings covers all of them.
+     */
+    public Predicate<Entity<Greeting>> canDeleteAllOfAuthor(Principal principal) {
+        return greeting -> principal.isAdmin()
+                && greeting.value().companyId().equals(principal.companyId());
     }
 
 }
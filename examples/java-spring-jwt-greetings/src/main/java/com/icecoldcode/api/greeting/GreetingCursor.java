@@ -0,0 +1,33 @@
+package com.icecoldcode.api.greeting;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque pagination cursor, pointing at the last greeting a client has seen.
+ */
+final class GreetingCursor {
+
+    private static final String PREFIX = "g:";
+
+    private GreetingCursor() {
+    }
+
+    static String encode(long lastSeenId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                (PREFIX + lastSeenId).getBytes(StandardCharsets.US_ASCII)
+        );
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor was not created by {@link #encode(long)}
+     */
+    static long decode(String cursor) {
+        var decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+        if (!decoded.startsWith(PREFIX)) {
+            throw new IllegalArgumentException("not a greeting cursor");
+        }
+        return Long.parseLong(decoded.substring(PREFIX.length()));
+    }
+
+}
@@ -1,28 +1,96 @@
 package com.icecoldcode.api.greeting;
 
 import com.icecoldcode.core.Entity;
+import com.icecoldcode.core.authentication.internal.AuthUser;
 import com.icecoldcode.core.authentication.internal.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class GreetingDtoAssembler {
 
     private final UserRepository userRepository;
+    private final Timer assembleTimer;
+    private final DistributionSummary listSizes;
 
-    public GreetingDtoAssembler(UserRepository userRepository) {
+    public GreetingDtoAssembler(UserRepository userRepository, MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
+        this.assembleTimer = Timer.builder("greetings.assemble")
+                .description("Assembling a list of greetings, including fetching their authors")
+                .register(meterRegistry);
+        this.listSizes = DistributionSummary.builder("greetings.list.size")
+                .description("Greetings per assembled list")
+                .register(meterRegistry);
     }
 
     public Optional<GreetingDto> toDto(Entity<Greeting> greetingEntity) {
         return userRepository.getById(greetingEntity.value().authorId()).map(authUserEntity ->
-                new GreetingDto(
-                        greetingEntity.id(),
-                        authUserEntity.value().getUsername(),
-                        authUserEntity.value().getCompanyId(),
-                        greetingEntity.value().message()
-                )
+                toDto(greetingEntity, authUserEntity)
+        );
+    }
+
+    /**
+     * Assembles many greetings, fetching each distinct author once.
+     * Greetings whose author can not be found are left out.
+     */
+    public List<GreetingDto> toDtos(Collection<Entity<Greeting>> greetingEntities) {
+        var greetingDtos = assembleTimer.record(() -> assemble(greetingEntities));
+        listSizes.record(greetingDtos.size());
+        return greetingDtos;
+    }
+
+    /**
+     * Records a list assembled from {@link #authorsOf} elsewhere, such as by
+     * {@link GreetingFragments}, in the meters {@link #toDtos} records in.
+     */
+    void recordAssembled(long nanos, int size) {
+        assembleTimer.record(nanos, TimeUnit.NANOSECONDS);
+        listSizes.record(size);
+    }
+
+    /**
+     * Fetches the authors of the greetings, each distinct author once.
+     */
+    Map<Long, Entity<AuthUser>> authorsOf(Collection<Entity<Greeting>> greetingEntities) {
+        var authorIds = new HashSet<Long>();
+        for (var greetingEntity : greetingEntities) {
+            authorIds.add(greetingEntity.value().authorId());
+        }
+
+        return authorIds.isEmpty()
+                ? Map.of()
+                : userRepository.getByIds(authorIds);
+    }
+
+    private List<GreetingDto> assemble(Collection<Entity<Greeting>> greetingEntities) {
+        var authors = authorsOf(greetingEntities);
+
+        List<GreetingDto> greetingDtos = new ArrayList<>(greetingEntities.size());
+        for (var greetingEntity : greetingEntities) {
+            var author = authors.get(greetingEntity.value().authorId());
+            if (author != null) {
+                greetingDtos.add(toDto(greetingEntity, author));
+            }
+        }
+        return greetingDtos;
+    }
+
+    static GreetingDto toDto(Entity<Greeting> greetingEntity, Entity<AuthUser> authUserEntity) {
+        return new GreetingDto(
+                greetingEntity.id(),
+                authUserEntity.value().getUsername(),
+                greetingEntity.value().companyId(),
+                greetingEntity.value().message()
         );
     }
 
@@ -0,0 +1,240 @@
+package com.icecoldcode.api.greeting;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Fans greeting changes out to subscribers of the event stream.
+ * <p>
+ * Events are numbered, and the latest ones are kept in a ring so a
+ * subscriber that comes back with the id of the last event it saw gets
+ * what it missed. Every subscriber has a bounded buffer. One that falls a
+ * whole buffer behind is evicted, rather than holding up writers or
+ * buffering without bound, and has to reconnect.
+ */
+@Component
+public class GreetingEvents {
+
+    public static final String CREATED = "created";
+    public static final String DELETED = "deleted";
+    /**
+     * Sent instead of a replay when the missed events are no longer kept,
+     * or for bulk changes, the subscriber has to read the whole list again.
+     */
+    public static final String RESET = "reset";
+
+    // sequences start over with the process, ids from before a restart must not resume
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Event[] history;
+    private final Set<Subscription> subscriptions = new LinkedHashSet<>();
+    private final int bufferSize;
+    private final Counter evictions;
+    // sequence of the next event, guarded by the lock
+    private long nextSequence = 1;
+
+    public GreetingEvents(
+            @Value("${greetings.events.history-size:1024}") int historySize,
+            @Value("${greetings.events.buffer-size:256}") int bufferSize,
+            MeterRegistry meterRegistry
+    ) {
+        this.history = new Event[historySize];
+        this.bufferSize = bufferSize;
+        this.evictions = Counter.builder("greetings.events.evicted")
+                .description("Subscribers dropped for falling a whole buffer behind")
+                .register(meterRegistry);
+        Gauge.builder("greetings.events.subscribers", this, GreetingEvents::subscriberCount)
+                .description("Open greeting event streams")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publishes the creation of those of the greetings that still exist.
+     * They are looked for holding the lock, and deletions are published
+     * after the greetings are gone, so a subscriber never gets the creation
+     * of a greeting after its deletion.
+     */
+    public void created(Collection<GreetingDto> greetings, LongPredicate exists) {
+        lock.lock();
+        try {
+            for (var greeting : greetings) {
+                if (exists.test(greeting.id())) {
+                    publish(CREATED, greeting);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Publishes the deletion of greetings, to be called once they are deleted.
+     */
+    public void deleted(Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            publish(DELETED, List.copyOf(ids));
+        }
+    }
+
+    /**
+     * Tells subscribers to read the whole list again, for changes too many
+     * to send one by one.
+     */
+    public void reset() {
+        publish(RESET, "");
+    }
+
+    /**
+     * Subscribes to events published from now on, preceded by those after
+     * {@code lastEventId} if it is given. If some of those are no longer
+     * kept, or the id is not one of ours, a {@link #RESET} comes first.
+     */
+    public Subscription subscribe(String lastEventId) {
+        var subscription = new Subscription();
+        lock.lock();
+        try {
+            if (lastEventId != null) {
+                replay(subscription, sequenceOf(lastEventId));
+            }
+            subscriptions.add(subscription);
+        } finally {
+            lock.unlock();
+        }
+        return subscription;
+    }
+
+    private void publish(String name, Object data) {
+        lock.lock();
+        try {
+            var sequence = nextSequence++;
+            var event = new Event(epoch + "-" + sequence, name, data);
+            history[(int) (sequence % history.length)] = event;
+
+            subscriptions.removeIf(subscription -> {
+                if (subscription.buffer.offer(event)) {
+                    return false;
+                }
+                subscription.evicted = true;
+                evictions.increment();
+                return true;
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queues the kept events after {@code sequence}, or a reset if any of
+     * them is gone. Called holding the lock.
+     */
+    private void replay(Subscription subscription, long sequence) {
+        var latest = nextSequence - 1;
+        var oldestKept = Math.max(1, nextSequence - history.length);
+        // more than fits in the buffer is cheaper to read as a list anyway
+        if (sequence < oldestKept - 1 || sequence > latest || latest - sequence > bufferSize) {
+            subscription.buffer.offer(new Event(epoch + "-" + latest, RESET, ""));
+            return;
+        }
+        for (var s = sequence + 1; s < nextSequence; s++) {
+            subscription.buffer.offer(history[(int) (s % history.length)]);
+        }
+    }
+
+    /**
+     * @return the sequence of one of our event ids, or -1 for anything else
+     */
+    private long sequenceOf(String eventId) {
+        var separator = eventId.indexOf('-');
+        if (separator < 0 || !epoch.equals(eventId.substring(0, separator))) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId, separator + 1, eventId.length(), 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private int subscriberCount() {
+        lock.lock();
+        try {
+            return subscriptions.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        lock.lock();
+        try {
+            subscriptions.remove(subscription);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param id   to resume from, sent as the SSE event id
+     * @param name the SSE event name, one of {@link #CREATED}, {@link #DELETED} or {@link #RESET}
+     * @param data a {@link GreetingDto} when created, the list of ids when deleted
+     */
+    public record Event(String id, String name, Object data) {
+    }
+
+    /**
+     * The buffered events of one subscriber. Its events are meant to be
+     * taken by a single thread.
+     */
+    public class Subscription implements AutoCloseable {
+
+        private final BlockingQueue<Event> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private volatile boolean evicted;
+
+        /**
+         * Waits for the next event.
+         *
+         * @return the event, or null if none came within the timeout
+         * @throws EvictedException once the subscriber has been evicted and
+         *                          the events buffered before that are taken
+         */
+        public Event poll(long timeout, TimeUnit unit) throws InterruptedException {
+            var event = buffer.poll();
+            if (event == null) {
+                if (evicted) {
+                    throw new EvictedException();
+                }
+                event = buffer.poll(timeout, unit);
+            }
+            return event;
+        }
+
+        @Override
+        public void close() {
+            unsubscribe(this);
+        }
+
+    }
+
+    public static class EvictedException extends RuntimeException {
+
+        EvictedException() {
+            super("subscriber fell too far behind");
+        }
+
+    }
+
+}
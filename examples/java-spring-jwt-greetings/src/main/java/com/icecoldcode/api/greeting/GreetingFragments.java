@@ -0,0 +1,111 @@
+package com.icecoldcode.api.greeting;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.icecoldcode.core.Entity;
+import com.icecoldcode.core.authentication.internal.AuthUser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes greetings as JSON from a cache of each greeting's serialized
+ * {@link GreetingDto}, so an unchanged greeting is serialized only once.
+ * <p>
+ * Fragments are cached by greeting id and keep the {@link GreetingDto}
+ * they were written from as their version. The dto is assembled anew for
+ * every list, which is cheap next to serializing it, and a fragment whose
+ * dto differs in anything, such as an author who was renamed, is written
+ * again. Users have no version of their own to key on, and comparing what
+ * is rendered can not miss a change the way a separate version could.
+ */
+@Service
+public class GreetingFragments {
+
+    private final GreetingDtoAssembler greetingDtoAssembler;
+    private final ObjectWriter writer;
+    private final Cache<Long, Fragment> fragments;
+
+    public GreetingFragments(
+            GreetingDtoAssembler greetingDtoAssembler,
+            ObjectMapper objectMapper,
+            @Value("${greetings.fragments.maximum-size:100000}") long maximumSize,
+            MeterRegistry meterRegistry
+    ) {
+        this.greetingDtoAssembler = greetingDtoAssembler;
+        this.writer = objectMapper.writerFor(GreetingDto.class);
+        this.fragments = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, fragments, "greetings.fragments");
+    }
+
+    /**
+     * Writes the greetings to {@code json} as a JSON array of
+     * {@link GreetingDto}, the same as serializing
+     * {@link GreetingDtoAssembler#toDtos} would. Assembling is recorded in
+     * the assembler's meters, before and apart from the writing, which takes
+     * as long as the client takes to read.
+     */
+    public void writeJsonArray(Collection<Entity<Greeting>> greetingEntities, OutputStream json) throws IOException {
+        var start = System.nanoTime();
+        var authors = greetingDtoAssembler.authorsOf(greetingEntities);
+        List<byte[]> assembled = new ArrayList<>(greetingEntities.size());
+        for (var greetingEntity : greetingEntities) {
+            var author = authors.get(greetingEntity.value().authorId());
+            if (author != null) {
+                assembled.add(fragment(greetingEntity, author));
+            }
+        }
+        greetingDtoAssembler.recordAssembled(System.nanoTime() - start, assembled.size());
+
+        json.write('[');
+        for (int i = 0; i < assembled.size(); i++) {
+            if (i > 0) {
+                json.write(',');
+            }
+            json.write(assembled.get(i));
+        }
+        json.write(']');
+    }
+
+    /**
+     * Drops the fragments of deleted greetings.
+     */
+    public void invalidate(Collection<Long> greetingIds) {
+        fragments.invalidateAll(greetingIds);
+    }
+
+    private byte[] fragment(Entity<Greeting> greetingEntity, Entity<AuthUser> author) {
+        var greetingDto = GreetingDtoAssembler.toDto(greetingEntity, author);
+        var fragment = fragments.getIfPresent(greetingEntity.id());
+        if (fragment == null || !fragment.greetingDto().equals(greetingDto)) {
+            fragment = new Fragment(greetingDto, serialize(greetingDto));
+            fragments.put(greetingEntity.id(), fragment);
+        }
+        return fragment.json();
+    }
+
+    private byte[] serialize(GreetingDto greetingDto) {
+        try {
+            return writer.writeValueAsBytes(greetingDto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("failed to serialize greeting " + greetingDto.id(), e);
+        }
+    }
+
+    private record Fragment(GreetingDto greetingDto, byte[] json) {
+    }
+
+}
@@ -1,39 +1,171 @@
 package com.icecoldcode.api.greeting;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.icecoldcode.core.Entity;
 import com.icecoldcode.core.SecurityContext;
+import com.icecoldcode.core.authentication.internal.Principal;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import java.util.Collection;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @RestController
 @RequestMapping("/api/v1/greetings")
 class GreetingsController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int STREAM_CHUNK_SIZE = 256;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+    // more greetings created at once reset subscribers rather than fill their buffers
+    private static final int MAX_CREATED_EVENTS = 100;
+    // the browser reconnects and resumes once an event stream times out
+    private static final Duration EVENT_STREAM_TIMEOUT = Duration.ofMinutes(30);
+    private static final Duration EVENT_STREAM_HEARTBEAT = Duration.ofSeconds(15);
+
     private final SecurityContext securityContext;
     private final GreetingAuthorizationService greetingAuthorizationService;
     private final GreetingsRepository greetingsRepository;
     private final GreetingDtoAssembler greetingDtoAssembler;
+    private final ObjectMapper objectMapper;
+    private final GreetingEvents greetingEvents;
+    private final GreetingFragments greetingFragments;
+    // versions start over with the repository, tags from before a restart must not match
+    private final String eTagEpoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
 
     public GreetingsController(SecurityContext securityContext,
                                GreetingAuthorizationService greetingAuthorizationService,
                                GreetingsRepository greetingsRepository,
-                               GreetingDtoAssembler greetingDtoAssembler) {
+                               GreetingDtoAssembler greetingDtoAssembler,
+                               ObjectMapper objectMapper,
+                               GreetingEvents greetingEvents,
+                               GreetingFragments greetingFragments) {
         this.securityContext = securityContext;
         this.greetingAuthorizationService = greetingAuthorizationService;
         this.greetingsRepository = greetingsRepository;
         this.greetingDtoAssembler = greetingDtoAssembler;
+        this.objectMapper = objectMapper;
+        this.greetingEvents = greetingEvents;
+        this.greetingFragments = greetingFragments;
     }
 
+    /**
+     * Lists all greetings, or a single page of them if {@code limit} is given.
+     * A page that might be followed by more greetings has a {@code Link}
+     * header pointing at the next page. With {@code company=mine} only the
+     * greetings of the caller's company are read, with {@code author=me}
+     * only the caller's own.
+     * <p>
+     * The response carries a weak ETag of the repository version, and a
+     * request that still has the current one gets a 304 without any
+     * greetings being read. The body is written straight to the response
+     * from the cached JSON of each greeting, see {@link GreetingFragments}.
+     */
     @GetMapping
-    Collection<GreetingDto> list() {
-        return greetingsRepository.list().stream()
-                .map(greetingDtoAssembler::toDto)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toList());
+    ResponseEntity<StreamingResponseBody> list(@RequestParam(required = false) Integer limit,
+                                               @RequestParam(required = false) String after,
+                                               @RequestParam(required = false) String company,
+                                               @RequestParam(required = false) String author,
+                                               WebRequest webRequest) {
+        var eTag = listETag(company != null || author != null);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
+        if (limit == null) {
+            var greetings = company == null && author == null && after == null
+                    ? greetingsRepository.list()
+                    : pages(company, author).read(after == null ? 0 : decodeCursor(after), Integer.MAX_VALUE);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .cacheControl(CacheControl.noCache())
+                    .eTag(eTag)
+                    .body(outputStream -> greetingFragments.writeJsonArray(greetings, outputStream));
+        }
+
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        var page = pages(company, author).read(after == null ? 0 : decodeCursor(after), limit);
+        var response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .eTag(eTag);
+        if (page.size() == limit) {
+            var nextPage = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", GreetingCursor.encode(page.get(page.size() - 1).id()))
+                    .build()
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + nextPage + ">; rel=\"next\"");
+        }
+        return response.body(outputStream -> greetingFragments.writeJsonArray(page, outputStream));
+    }
+
+    /**
+     * Writes greetings to the response as they are assembled, a chunk at a
+     * time, rather than collecting the whole list first. Takes the same
+     * filters and answers with the same ETag as {@link #list}.
+     */
+    @GetMapping(params = "stream=true")
+    ResponseEntity<StreamingResponseBody> stream(@RequestParam(required = false) String after,
+                                                 @RequestParam(required = false) String company,
+                                                 @RequestParam(required = false) String author,
+                                                 WebRequest webRequest) {
+        var eTag = listETag(company != null || author != null);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
+        var startAfter = after == null ? 0 : decodeCursor(after);
+        var pages = pages(company, author);
+
+        StreamingResponseBody body = outputStream -> {
+            try (var generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+
+                var lastSeenId = startAfter;
+                while (true) {
+                    var chunk = pages.read(lastSeenId, STREAM_CHUNK_SIZE);
+                    for (var greetingDto : greetingDtoAssembler.toDtos(chunk)) {
+                        generator.writeObject(greetingDto);
+                    }
+                    generator.flush();
+
+                    if (chunk.size() < STREAM_CHUNK_SIZE) {
+                        break;
+                    }
+                    lastSeenId = chunk.get(chunk.size() - 1).id();
+                }
+
+                generator.writeEndArray();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .eTag(eTag)
+                .body(body);
     }
 
     @DeleteMapping("/{id}")
@@ -44,18 +176,234 @@ class GreetingsController {
                 .filter(greetingAuthorizationService.canDelete(principal))
                 .map(greetingEntity -> {
                     greetingsRepository.delete(id);
+                    greetingFragments.invalidate(List.of(id));
+                    greetingEvents.deleted(List.of(id));
                     return ResponseEntity.noContent().<Void>build();
                 })
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    /**
+     * Deletes all greetings of an author, for admins of the author's company.
+     *
+     * @return the number of deleted greetings
+     */
+    @DeleteMapping(params = "author")
+    public ResponseEntity<Integer> deleteByAuthor(@RequestParam long author) {
+        var principal = securityContext.requirePrincipal();
+
+        return greetingsRepository.listByAuthor(author, 0, 1).stream()
+                .findFirst()
+                .filter(greetingAuthorizationService.canDeleteAllOfAuthor(principal))
+                .map(greetingEntity -> {
+                    var deletedIds = greetingsRepository.deleteByAuthor(author).stream()
+                            .map(Entity::id)
+                            .toList();
+                    greetingFragments.invalidate(deletedIds);
+                    greetingEvents.deleted(deletedIds);
+                    return ResponseEntity.ok(deletedIds.size());
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @PostMapping
     public long create(@RequestBody CreateGreetingDto greetingDto) {
         var principal = securityContext.requirePrincipal();
-        return greetingsRepository.create(new Greeting(
+        var greeting = new Greeting(
                 principal.userId(),
+                principal.companyId(),
                 greetingDto.message()
-        ));
+        );
+        var id = greetingsRepository.create(greeting);
+        greetingDtoAssembler.toDto(new Entity<>(id, greeting))
+                .ifPresent(greetingDto -> greetingEvents.created(List.of(greetingDto), this::exists));
+        return id;
+    }
+
+    /**
+     * Creates the greetings of a JSON array with a single repository call.
+     * A greeting without a message fails the whole batch with a 400.
+     *
+     * @return the ids, in the order of the greetings
+     */
+    @PostMapping("/batch")
+    public List<Long> createAll(@RequestBody List<CreateGreetingDto> greetingDtos) {
+        var principal = securityContext.requirePrincipal();
+        if (greetingDtos.isEmpty() || greetingDtos.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "a batch must have between 1 and " + MAX_BATCH_SIZE + " greetings");
+        }
+        for (int i = 0; i < greetingDtos.size(); i++) {
+            if (!hasMessage(greetingDtos.get(i))) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "greeting " + (i + 1) + " of the batch has no message, none imported");
+            }
+        }
+
+        var created = createAll(principal, greetingDtos);
+        if (created.size() <= MAX_CREATED_EVENTS) {
+            greetingEvents.created(greetingDtoAssembler.toDtos(created), this::exists);
+        } else {
+            greetingEvents.reset();
+        }
+        return created.stream().map(Entity::id).toList();
+    }
+
+    /**
+     * Imports greetings from newline delimited JSON, a {@link CreateGreetingDto}
+     * per line. Lines are parsed as the body arrives and created a chunk at a
+     * time, so the body is never held in memory. A malformed line, which
+     * includes one without a message, ends the import with a 400 naming the
+     * line, keeping the chunks created before it.
+     *
+     * @return the number of created greetings
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public long importGreetings(InputStream body) throws IOException {
+        var principal = securityContext.requirePrincipal();
+
+        long imported = 0;
+        try (MappingIterator<CreateGreetingDto> lines = objectMapper.readerFor(CreateGreetingDto.class).readValues(body)) {
+            List<CreateGreetingDto> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+            while (lines.hasNextValue()) {
+                chunk.add(lines.nextValue());
+                if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                    imported += createAll(principal, chunk).size();
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                imported += createAll(principal, chunk).size();
+            }
+        } catch (JsonProcessingException e) {
+            var line = e.getLocation() == null ? "" : " on line " + e.getLocation().getLineNr();
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "malformed greeting" + line + ", " + imported + " imported before it", e);
+        } finally {
+            if (imported > 0) {
+                greetingEvents.reset();
+            }
+        }
+        return imported;
+    }
+
+    /**
+     * Pushes greetings as they are created and deleted, as server-sent
+     * events, so clients need not read the list again. A client that
+     * reconnects with {@code Last-Event-ID} gets the events it missed.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    SseEmitter events(@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        securityContext.requirePrincipal();
+
+        var emitter = new SseEmitter(EVENT_STREAM_TIMEOUT.toMillis());
+        var completed = new AtomicBoolean();
+        emitter.onCompletion(() -> completed.set(true));
+
+        var subscription = greetingEvents.subscribe(lastEventId);
+        Thread.ofVirtual()
+                .name("greeting-events")
+                .start(() -> sendEvents(subscription, emitter, completed));
+        return emitter;
+    }
+
+    /**
+     * Sends the subscription's events until the stream completes or the
+     * subscriber is evicted. A heartbeat on a quiet stream finds clients
+     * that went away.
+     */
+    private static void sendEvents(GreetingEvents.Subscription subscription,
+                                   SseEmitter emitter,
+                                   AtomicBoolean completed) {
+        try (subscription) {
+            while (!completed.get()) {
+                var event = subscription.poll(EVENT_STREAM_HEARTBEAT.toMillis(), TimeUnit.MILLISECONDS);
+                if (event == null) {
+                    emitter.send(SseEmitter.event().comment(""));
+                } else {
+                    emitter.send(SseEmitter.event()
+                            .id(event.id())
+                            .name(event.name())
+                            .data(event.data()));
+                }
+            }
+        } catch (GreetingEvents.EvictedException e) {
+            // the client reconnects and resumes from the last event it got
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // the client went away, or the stream already completed
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        }
+    }
+
+    private static boolean hasMessage(CreateGreetingDto greetingDto) {
+        return greetingDto != null && greetingDto.message() != null;
+    }
+
+    private boolean exists(long id) {
+        return greetingsRepository.get(id).isPresent();
+    }
+
+    private List<Entity<Greeting>> createAll(Principal principal, List<CreateGreetingDto> greetingDtos) {
+        List<Greeting> greetings = new ArrayList<>(greetingDtos.size());
+        for (var greetingDto : greetingDtos) {
+            greetings.add(new Greeting(principal.userId(), principal.companyId(), greetingDto.message()));
+        }
+        return greetingsRepository.createAll(greetings);
+    }
+
+    /**
+     * The version is read before any greetings, so a change made while
+     * listing leaves the tag behind rather than ahead. Lists filtered by
+     * the caller's company or authorship also depend on who is asking.
+     */
+    private String listETag(boolean perPrincipal) {
+        var tag = eTagEpoch + "-" + greetingsRepository.version();
+        if (perPrincipal) {
+            tag += "-" + securityContext.requirePrincipal().userId();
+        }
+        return "W/\"" + tag + "\"";
+    }
+
+    /**
+     * Reads from the narrowest index the filters allow. Only the caller's
+     * own company and own greetings can be asked for. The filters and the
+     * caller are resolved right away, so pages can be read later, off the
+     * request thread.
+     */
+    private Pages pages(String company, String author) {
+        if (author != null) {
+            if (!"me".equals(author)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "author must be me");
+            }
+            // an author's greetings all belong to the author's company
+            var authorId = securityContext.requirePrincipal().userId();
+            return (afterId, limit) -> greetingsRepository.listByAuthor(authorId, afterId, limit);
+        }
+        if (company != null) {
+            if (!"mine".equals(company)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "company must be mine");
+            }
+            var companyId = securityContext.requirePrincipal().companyId();
+            return (afterId, limit) -> greetingsRepository.listByCompany(companyId, afterId, limit);
+        }
+        return greetingsRepository::listAfter;
+    }
+
+    private static long decodeCursor(String cursor) {
+        try {
+            return GreetingCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid cursor");
+        }
+    }
+
+    private interface Pages {
+
+        List<Entity<Greeting>> read(long afterId, int limit);
+
     }
 
 }
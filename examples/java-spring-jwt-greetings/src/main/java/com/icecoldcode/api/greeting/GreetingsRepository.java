@@ -3,16 +3,54 @@ package com.icecoldcode.api.greeting;
 import com.icecoldcode.core.Entity;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface GreetingsRepository {
 
     Collection<Entity<Greeting>> list();
 
+    /**
+     * At most {@code limit} greetings with an id greater than
+     * {@code afterId}, in ascending id order.
+     */
+    List<Entity<Greeting>> listAfter(long afterId, int limit);
+
+    /**
+     * Like {@link #listAfter}, but reading only the greetings of one company.
+     */
+    List<Entity<Greeting>> listByCompany(String companyId, long afterId, int limit);
+
+    /**
+     * Like {@link #listAfter}, but reading only the greetings of one author.
+     */
+    List<Entity<Greeting>> listByAuthor(long authorId, long afterId, int limit);
+
     Optional<Entity<Greeting>> get(long id);
 
     void delete(long id);
 
+    /**
+     * Deletes every greeting of one author in a single operation.
+     *
+     * @return the deleted greetings
+     */
+    List<Entity<Greeting>> deleteByAuthor(long authorId);
+
     long create(Greeting greeting);
 
+    /**
+     * Creates many greetings at once. Their ids are taken in one step, so
+     * they are consecutive and in the order given.
+     *
+     * @return the created greetings
+     */
+    List<Entity<Greeting>> createAll(List<Greeting> greetings);
+
+    /**
+     * A number that grows with every change to the greetings. Reading it
+     * before reading greetings tells whether anything changed since.
+     */
+    long version();
+
 }
@@ -3,38 +3,262 @@ package com.icecoldcode.api.greeting.infrastructure;
 import com.icecoldcode.api.greeting.Greeting;
 import com.icecoldcode.api.greeting.GreetingsRepository;
 import com.icecoldcode.core.Entity;
-import org.springframework.stereotype.Repository;
+import com.icecoldcode.core.PersistentLongMap;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
-@Repository
+/**
+ * Greetings in memory, by id and partitioned by company and by author.
+ * <p>
+ * All of it is one immutable {@link Snapshot}. Writers take turns building
+ * the next snapshot from the current one, sharing everything they do not
+ * change, and publish it in one step. Readers only read the current one:
+ * they never wait for writers, never see half a change, and what they list
+ * stays as it was for as long as they take to go through it.
+ */
 public class GreetingRepositoryInMemory implements GreetingsRepository {
 
-    public static long nextId = 1;
-
-    private final Map<Long, Entity<Greeting>> store = new HashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // numbers for the companies, to partition by them like by author; only added to
+    private final Map<String, Long> companyKeys = new ConcurrentHashMap<>();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
 
     @Override
     public Collection<Entity<Greeting>> list() {
-        return store.values();
+        return snapshot.greetings().values();
+    }
+
+    @Override
+    public List<Entity<Greeting>> listAfter(long afterId, int limit) {
+        return page(snapshot.greetings(), afterId, limit);
+    }
+
+    @Override
+    public List<Entity<Greeting>> listByCompany(String companyId, long afterId, int limit) {
+        var companyKey = companyKeys.get(companyId);
+        return companyKey == null ? List.of() : page(snapshot.byCompany().get(companyKey), afterId, limit);
+    }
+
+    @Override
+    public List<Entity<Greeting>> listByAuthor(long authorId, long afterId, int limit) {
+        return page(snapshot.byAuthor().get(authorId), afterId, limit);
     }
 
     @Override
     public Optional<Entity<Greeting>> get(long id) {
-        return Optional.ofNullable(store.get(id));
+        return Optional.ofNullable(snapshot.greetings().get(id));
     }
 
     @Override
     public void delete(long id) {
-        store.remove(id);
+        writeLock.lock();
+        try {
+            var current = snapshot;
+            var greeting = current.greetings().get(id);
+            if (greeting != null) {
+                snapshot = current.without(greeting, companyKey(greeting)).changed();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Entity<Greeting>> deleteByAuthor(long authorId) {
+        writeLock.lock();
+        try {
+            var current = snapshot;
+            var partition = current.byAuthor().get(authorId);
+            if (partition == null) {
+                return List.of();
+            }
+
+            List<Entity<Greeting>> deleted = new ArrayList<>(partition.values());
+            for (var greeting : deleted) {
+                current = current.without(greeting, companyKey(greeting));
+            }
+            snapshot = current.changed();
+            return deleted;
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     @Override
     public long create(Greeting greetingDto) {
-        store.put(nextId, new Entity<>(nextId, greetingDto));
-        return nextId++;
+        writeLock.lock();
+        try {
+            var current = snapshot;
+            var greeting = new Entity<>(current.nextId(), greetingDto);
+            snapshot = current.with(greeting, companyKey(greeting)).changed();
+            return greeting.id();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Entity<Greeting>> createAll(List<Greeting> greetings) {
+        if (greetings.isEmpty()) {
+            return List.of();
+        }
+
+        writeLock.lock();
+        try {
+            var current = snapshot;
+            var firstId = current.nextId();
+            List<Entity<Greeting>> created = new ArrayList<>(greetings.size());
+            for (var greetingDto : greetings) {
+                var greeting = new Entity<>(firstId + created.size(), greetingDto);
+                current = current.with(greeting, companyKey(greeting));
+                created.add(greeting);
+            }
+            snapshot = current.changed();
+            return created;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public long version() {
+        return snapshot.version();
+    }
+
+    /**
+     * Stores a greeting under an id chosen by the caller, as when rebuilding
+     * from storage. Ids handed out later are greater than it.
+     */
+    void put(Entity<Greeting> greeting) {
+        putAll(List.of(greeting));
+    }
+
+    /**
+     * Like {@link #put}, for many greetings that become visible together.
+     */
+    void putAll(List<Entity<Greeting>> greetings) {
+        writeLock.lock();
+        try {
+            var current = snapshot;
+            for (var greeting : greetings) {
+                current = current.with(greeting, companyKey(greeting));
+            }
+            snapshot = current.changed();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * The id the next created greeting gets.
+     */
+    long nextId() {
+        return snapshot.nextId();
+    }
+
+    /**
+     * Hands out no id lower than {@code id} from now on.
+     */
+    void skipTo(long id) {
+        writeLock.lock();
+        try {
+            var current = snapshot;
+            if (id > current.nextId()) {
+                snapshot = new Snapshot(current.greetings(), current.byCompany(), current.byAuthor(), id, current.version());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Called holding the write lock, so numbers are handed out in turn.
+     */
+    private long companyKey(Entity<Greeting> greeting) {
+        return companyKeys.computeIfAbsent(greeting.value().companyId(), companyId -> (long) companyKeys.size());
+    }
+
+    private static List<Entity<Greeting>> page(PersistentLongMap<Entity<Greeting>> greetings,
+                                               long afterId,
+                                               int limit) {
+        if (greetings == null || limit < 1) {
+            return List.of();
+        }
+
+        List<Entity<Greeting>> page = new ArrayList<>(Math.min(limit, Math.min(greetings.size(), 1024)));
+        greetings.forEachAfter(afterId, greeting -> {
+            page.add(greeting);
+            return page.size() < limit;
+        });
+        return page;
     }
+
+    /**
+     * @param byCompany greetings by company key, then by id
+     * @param byAuthor  greetings by author, then by id
+     * @param version   grows with every change
+     */
+    private record Snapshot(PersistentLongMap<Entity<Greeting>> greetings,
+                            PersistentLongMap<PersistentLongMap<Entity<Greeting>>> byCompany,
+                            PersistentLongMap<PersistentLongMap<Entity<Greeting>>> byAuthor,
+                            long nextId,
+                            long version) {
+
+        static final Snapshot EMPTY = new Snapshot(
+                PersistentLongMap.empty(),
+                PersistentLongMap.empty(),
+                PersistentLongMap.empty(),
+                1,
+                0
+        );
+
+        Snapshot with(Entity<Greeting> greeting, long companyKey) {
+            return new Snapshot(
+                    greetings.put(greeting.id(), greeting),
+                    added(byCompany, companyKey, greeting),
+                    added(byAuthor, greeting.value().authorId(), greeting),
+                    Math.max(nextId, greeting.id() + 1),
+                    version
+            );
+        }
+
+        Snapshot without(Entity<Greeting> greeting, long companyKey) {
+            return new Snapshot(
+                    greetings.remove(greeting.id()),
+                    removed(byCompany, companyKey, greeting),
+                    removed(byAuthor, greeting.value().authorId(), greeting),
+                    nextId,
+                    version
+            );
+        }
+
+        Snapshot changed() {
+            return new Snapshot(greetings, byCompany, byAuthor, nextId, version + 1);
+        }
+
+        private static PersistentLongMap<PersistentLongMap<Entity<Greeting>>> added(
+                PersistentLongMap<PersistentLongMap<Entity<Greeting>>> partitions,
+                long key,
+                Entity<Greeting> greeting) {
+            var partition = partitions.get(key);
+            return partitions.put(key, (partition == null ? PersistentLongMap.<Entity<Greeting>>empty() : partition)
+                    .put(greeting.id(), greeting));
+        }
+
+        private static PersistentLongMap<PersistentLongMap<Entity<Greeting>>> removed(
+                PersistentLongMap<PersistentLongMap<Entity<Greeting>>> partitions,
+                long key,
+                Entity<Greeting> greeting) {
+            var partition = partitions.get(key).remove(greeting.id());
+            return partition.isEmpty() ? partitions.remove(key) : partitions.put(key, partition);
+        }
+
+    }
+
 }
@@ -0,0 +1,556 @@
+package com.icecoldcode.api.greeting.infrastructure;
+
+import com.icecoldcode.api.greeting.Greeting;
+import com.icecoldcode.api.greeting.GreetingsRepository;
+import com.icecoldcode.core.Entity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Keeps greetings in memory and makes every change durable by appending it
+ * to a memory-mapped log before applying it. Reads never touch the disk.
+ * <p>
+ * Each log record is {@code [length][crc32][type][id][authorId][companyId][message]},
+ * where a delete carries only the id, or the author id when it deletes all
+ * greetings of an author. Greetings created together share one record of
+ * {@code [type][firstId][count]} followed by
+ * {@code [authorId][companyId][message]} for each, so a batch is replayed
+ * whole or not at all.
+ * The length is written last, so a record torn by a crash either has no
+ * length or fails its checksum, and replay stops right before it.
+ * <p>
+ * Logs are numbered by generation. A snapshot holds every live greeting
+ * up to the start of one generation; taking one starts a new generation,
+ * writes the snapshot next to the old one and swaps it in with an atomic
+ * move, after which older logs, and with them deleted greetings, are
+ * dropped. Startup loads the snapshot and replays the logs after it.
+ */
+public class GreetingRepositoryLogged implements GreetingsRepository, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(GreetingRepositoryLogged.class);
+
+    // 2 added the company of greetings
+    private static final int FORMAT_VERSION = 2;
+    private static final int LOG_MAGIC = 0x47574C47;
+    private static final int SNAPSHOT_MAGIC = 0x4753504E;
+    private static final int LOG_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final byte CREATE = 1;
+    private static final byte DELETE = 2;
+    private static final byte DELETE_BY_AUTHOR = 3;
+    private static final byte CREATE_ALL = 4;
+    private static final int INITIAL_LOG_SIZE = 1 << 20;
+    // a mapping can not exceed 2 GB, roll over to a new generation well before
+    private static final int MAX_LOG_SIZE = 1 << 28;
+    private static final String SNAPSHOT_FILE = "greetings.snapshot";
+    private static final String LOG_PREFIX = "greetings-";
+    private static final String LOG_SUFFIX = ".log";
+
+    private final GreetingRepositoryInMemory index = new GreetingRepositoryInMemory();
+    private final Path directory;
+    private final boolean forceOnWrite;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Object snapshotLock = new Object();
+    private final ScheduledExecutorService snapshots;
+
+    // guarded by writeLock
+    private long generation;
+    private FileChannel logChannel;
+    private MappedByteBuffer log;
+    private long recordsSinceSnapshot;
+
+    /**
+     * @param forceOnWrite whether to flush every record to the device, rather
+     *                     than leaving it to the OS; without it a crash of the
+     *                     process loses nothing, but a crash of the machine may
+     */
+    public GreetingRepositoryLogged(Path directory, Duration snapshotInterval, boolean forceOnWrite) throws IOException {
+        this.directory = directory;
+        this.forceOnWrite = forceOnWrite;
+
+        Files.createDirectories(directory);
+        var firstGeneration = loadSnapshot();
+        var generations = logGenerations();
+        for (var olderGeneration : generations) {
+            if (olderGeneration < firstGeneration) {
+                Files.delete(logFile(olderGeneration));
+            }
+        }
+        generations.removeIf(olderGeneration -> olderGeneration < firstGeneration);
+
+        generation = generations.isEmpty() ? firstGeneration : generations.get(generations.size() - 1);
+        for (var olderGeneration : generations) {
+            if (olderGeneration != generation) {
+                try (var channel = FileChannel.open(logFile(olderGeneration), StandardOpenOption.READ)) {
+                    replay(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), olderGeneration);
+                }
+            }
+        }
+        openLog();
+
+        this.snapshots = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "greetings-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        var intervalMillis = snapshotInterval.toMillis();
+        snapshots.scheduleWithFixedDelay(this::snapshotQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Collection<Entity<Greeting>> list() {
+        return index.list();
+    }
+
+    @Override
+    public List<Entity<Greeting>> listAfter(long afterId, int limit) {
+        return index.listAfter(afterId, limit);
+    }
+
+    @Override
+    public List<Entity<Greeting>> listByCompany(String companyId, long afterId, int limit) {
+        return index.listByCompany(companyId, afterId, limit);
+    }
+
+    @Override
+    public List<Entity<Greeting>> listByAuthor(long authorId, long afterId, int limit) {
+        return index.listByAuthor(authorId, afterId, limit);
+    }
+
+    @Override
+    public Optional<Entity<Greeting>> get(long id) {
+        return index.get(id);
+    }
+
+    @Override
+    public void delete(long id) {
+        writeLock.lock();
+        try {
+            if (index.get(id).isEmpty()) {
+                return;
+            }
+            append(DELETE, id, null);
+            index.delete(id);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Entity<Greeting>> deleteByAuthor(long authorId) {
+        writeLock.lock();
+        try {
+            if (index.listByAuthor(authorId, 0, 1).isEmpty()) {
+                return List.of();
+            }
+            append(DELETE_BY_AUTHOR, authorId, null);
+            return index.deleteByAuthor(authorId);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public long create(Greeting greeting) {
+        writeLock.lock();
+        try {
+            var id = index.nextId();
+            append(CREATE, id, greeting);
+            index.put(new Entity<>(id, greeting));
+            return id;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Entity<Greeting>> createAll(List<Greeting> greetings) {
+        if (greetings.isEmpty()) {
+            return List.of();
+        }
+
+        writeLock.lock();
+        try {
+            var firstId = index.nextId();
+            appendAll(firstId, greetings);
+            List<Entity<Greeting>> created = new ArrayList<>(greetings.size());
+            for (var greeting : greetings) {
+                created.add(new Entity<>(firstId + created.size(), greeting));
+            }
+            index.putAll(created);
+            return created;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public long version() {
+        return index.version();
+    }
+
+    /**
+     * Writes a snapshot of all greetings and drops the logs it replaces.
+     * Writers are only held up while the log is rolled over, the greetings
+     * are written from a point-in-time view that later changes leave alone.
+     */
+    public void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            Collection<Entity<Greeting>> greetings;
+            long nextId;
+            long firstGeneration;
+            writeLock.lock();
+            try {
+                if (recordsSinceSnapshot == 0) {
+                    return;
+                }
+                greetings = index.list();
+                nextId = index.nextId();
+                rollLog();
+                firstGeneration = generation;
+                recordsSinceSnapshot = 0;
+            } finally {
+                writeLock.unlock();
+            }
+
+            writeSnapshot(greetings, nextId, firstGeneration);
+            for (var olderGeneration : logGenerations()) {
+                if (olderGeneration < firstGeneration) {
+                    Files.deleteIfExists(logFile(olderGeneration));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        snapshots.shutdownNow();
+        snapshot();
+        writeLock.lock();
+        try {
+            log.force();
+            logChannel.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            logger.error("failed to snapshot greetings", e);
+        }
+    }
+
+    private void append(byte type, long id, Greeting greeting) {
+        var companyId = greeting == null ? new byte[0] : greeting.companyId().getBytes(StandardCharsets.UTF_8);
+        var message = greeting == null ? new byte[0] : greeting.message().getBytes(StandardCharsets.UTF_8);
+        var length = greeting == null ? 9 : 21 + companyId.length + message.length;
+        appendRecord(length, payload -> {
+            payload.put(type).putLong(id);
+            if (greeting != null) {
+                payload.putLong(greeting.authorId()).putInt(companyId.length).put(companyId).put(message);
+            }
+        });
+    }
+
+    private void appendAll(long firstId, List<Greeting> greetings) {
+        var companyIds = new byte[greetings.size()][];
+        var messages = new byte[greetings.size()][];
+        long length = 13;
+        for (int i = 0; i < greetings.size(); i++) {
+            companyIds[i] = greetings.get(i).companyId().getBytes(StandardCharsets.UTF_8);
+            messages[i] = greetings.get(i).message().getBytes(StandardCharsets.UTF_8);
+            length += 16 + companyIds[i].length + messages[i].length;
+        }
+        if (length > MAX_LOG_SIZE) {
+            throw new IllegalArgumentException("greetings too large to log");
+        }
+
+        appendRecord((int) length, payload -> {
+            payload.put(CREATE_ALL).putLong(firstId).putInt(greetings.size());
+            for (int i = 0; i < greetings.size(); i++) {
+                payload.putLong(greetings.get(i).authorId())
+                        .putInt(companyIds[i].length).put(companyIds[i])
+                        .putInt(messages[i].length).put(messages[i]);
+            }
+        });
+    }
+
+    private void appendRecord(int length, Consumer<ByteBuffer> payloadWriter) {
+        try {
+            ensureCapacity(RECORD_HEADER_SIZE + length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to grow greetings log", e);
+        }
+
+        var start = log.position();
+        var payload = log.slice(start + RECORD_HEADER_SIZE, length);
+        payloadWriter.accept(payload);
+        payload.flip();
+        var crc = new CRC32();
+        crc.update(payload);
+
+        log.putInt(start + 4, (int) crc.getValue());
+        log.putInt(start, length);
+        log.position(start + RECORD_HEADER_SIZE + length);
+        if (forceOnWrite) {
+            log.force();
+        }
+        recordsSinceSnapshot++;
+    }
+
+    private void ensureCapacity(int recordSize) throws IOException {
+        if (recordSize > MAX_LOG_SIZE - LOG_HEADER_SIZE) {
+            throw new IllegalArgumentException("greeting too large to log");
+        }
+        if (recordSize <= log.remaining()) {
+            return;
+        }
+        if ((long) log.position() + recordSize > MAX_LOG_SIZE) {
+            rollLog();
+        }
+        var position = log.position();
+        if (recordSize <= log.remaining()) {
+            return;
+        }
+        var size = (int) Math.min(MAX_LOG_SIZE, Math.max(2L * log.capacity(), (long) position + recordSize));
+        log = logChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        log.position(position);
+    }
+
+    private void rollLog() throws IOException {
+        log.force();
+        logChannel.close();
+        generation++;
+        openLog();
+    }
+
+    private void openLog() throws IOException {
+        logChannel = FileChannel.open(
+                logFile(generation),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        );
+        log = logChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_LOG_SIZE, logChannel.size()));
+        // a crash may leave a new log mapped but without its header
+        if (log.getInt(0) == 0) {
+            log.putInt(LOG_MAGIC).putInt(FORMAT_VERSION);
+            return;
+        }
+
+        var tail = replay(log, generation);
+        // clear what a torn record left behind, or it could be read as part of the next one
+        log.position(tail);
+        var zeros = new byte[4096];
+        while (log.hasRemaining()) {
+            log.put(zeros, 0, Math.min(zeros.length, log.remaining()));
+        }
+        log.position(tail);
+    }
+
+    /**
+     * Applies the records of a log to the index.
+     *
+     * @return the position right after the last intact record
+     */
+    private int replay(ByteBuffer buffer, long logGeneration) {
+        var magic = buffer.getInt();
+        if (magic == 0) {
+            return LOG_HEADER_SIZE;
+        }
+        if (magic != LOG_MAGIC) {
+            throw new IllegalStateException("not a greetings log: " + logFile(logGeneration));
+        }
+        var version = buffer.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalStateException("unsupported greetings log version " + version);
+        }
+
+        var crc = new CRC32();
+        while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+            var start = buffer.position();
+            var length = buffer.getInt();
+            var checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                if (length != 0) {
+                    logger.warn("ignoring torn record at {} of {}", start, logFile(logGeneration));
+                }
+                return start;
+            }
+            var payload = buffer.slice(start + RECORD_HEADER_SIZE, length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                logger.warn("ignoring torn record at {} of {}", start, logFile(logGeneration));
+                return start;
+            }
+            apply(payload);
+            buffer.position(start + RECORD_HEADER_SIZE + length);
+            recordsSinceSnapshot++;
+        }
+        return buffer.position();
+    }
+
+    private void apply(ByteBuffer payload) {
+        var type = payload.get();
+        var id = payload.getLong();
+        switch (type) {
+            case CREATE -> {
+                var authorId = payload.getLong();
+                var companyId = new byte[payload.getInt()];
+                payload.get(companyId);
+                var message = StandardCharsets.UTF_8.decode(payload).toString();
+                index.put(new Entity<>(id, new Greeting(
+                        authorId,
+                        new String(companyId, StandardCharsets.UTF_8),
+                        message
+                )));
+            }
+            case CREATE_ALL -> {
+                var count = payload.getInt();
+                List<Entity<Greeting>> created = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    var authorId = payload.getLong();
+                    var companyId = readString(payload);
+                    var message = readString(payload);
+                    created.add(new Entity<>(id + i, new Greeting(authorId, companyId, message)));
+                }
+                index.putAll(created);
+            }
+            case DELETE -> index.delete(id);
+            case DELETE_BY_AUTHOR -> index.deleteByAuthor(id);
+            default -> throw new IllegalStateException("unknown greetings log record type " + type);
+        }
+    }
+
+    private void writeSnapshot(Collection<Entity<Greeting>> greetings, long nextId, long firstGeneration) throws IOException {
+        var snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        var temporaryFile = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (var file = new FileOutputStream(temporaryFile.toFile())) {
+            var checked = new CheckedOutputStream(new BufferedOutputStream(file), new CRC32());
+            var out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(firstGeneration);
+            out.writeLong(nextId);
+            out.writeInt(greetings.size());
+            for (var greeting : greetings) {
+                out.writeLong(greeting.id());
+                out.writeLong(greeting.value().authorId());
+                writeString(out, greeting.value().companyId());
+                writeString(out, greeting.value().message());
+            }
+            out.writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temporaryFile, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @return the first generation of logs the snapshot does not cover
+     */
+    private long loadSnapshot() throws IOException {
+        Files.deleteIfExists(directory.resolve(SNAPSHOT_FILE + ".tmp"));
+        var snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(snapshotFile)) {
+            return 1;
+        }
+
+        try (var checked = new CheckedInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)), new CRC32())) {
+            var in = new DataInputStream(checked);
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IllegalStateException("not a greetings snapshot: " + snapshotFile);
+            }
+            var version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalStateException("unsupported greetings snapshot version " + version);
+            }
+            var firstGeneration = in.readLong();
+            var nextId = in.readLong();
+            var count = in.readInt();
+            List<Entity<Greeting>> greetings = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                var id = in.readLong();
+                var authorId = in.readLong();
+                var companyId = readString(in);
+                var message = readString(in);
+                greetings.add(new Entity<>(id, new Greeting(authorId, companyId, message)));
+            }
+            var expectedChecksum = (int) checked.getChecksum().getValue();
+            if (in.readInt() != expectedChecksum) {
+                throw new IllegalStateException("corrupt greetings snapshot: " + snapshotFile);
+            }
+            // one snapshot of the index for all of them, rather than one per greeting
+            index.putAll(greetings);
+            index.skipTo(nextId);
+            return firstGeneration;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        var bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+    }
+
+    private List<Long> logGenerations() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(LOG_PREFIX) && name.endsWith(LOG_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(LOG_PREFIX.length(), name.length() - LOG_SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    private Path logFile(long logGeneration) {
+        return directory.resolve(LOG_PREFIX + logGeneration + LOG_SUFFIX);
+    }
+
+}
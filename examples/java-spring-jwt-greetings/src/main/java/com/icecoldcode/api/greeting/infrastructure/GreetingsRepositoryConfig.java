@@ -0,0 +1,29 @@
+package com.icecoldcode.api.greeting.infrastructure;
+
+import com.icecoldcode.api.greeting.GreetingsRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+class GreetingsRepositoryConfig {
+
+    @Bean
+    GreetingsRepository greetingsRepository(
+            @Value("${greetings.store:memory}") String store,
+            @Value("${greetings.log.directory:data/greetings}") Path directory,
+            @Value("${greetings.log.snapshot-interval:5m}") Duration snapshotInterval,
+            @Value("${greetings.log.force-on-write:false}") boolean forceOnWrite
+    ) throws IOException {
+        return switch (store) {
+            case "memory" -> new GreetingRepositoryInMemory();
+            case "log" -> new GreetingRepositoryLogged(directory, snapshotInterval, forceOnWrite);
+            default -> throw new IllegalArgumentException("unknown greetings.store: " + store);
+        };
+    }
+
+}
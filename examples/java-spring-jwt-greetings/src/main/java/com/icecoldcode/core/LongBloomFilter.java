@@ -0,0 +1,79 @@
+package com.icecoldcode.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter over {@code long} keys: a key that was added is always
+ * reported as possibly present, a key that was not is reported absent
+ * with a probability of roughly one minus the configured false positive
+ * rate, as long as no more than the expected number of keys are added.
+ * <p>
+ * Adding and testing are lock free and may run concurrently. Keys can not
+ * be removed, a filter is dropped as a whole instead.
+ */
+public class LongBloomFilter {
+
+    private static final int MIN_BITS = 64;
+
+    private final AtomicLongArray words;
+    private final int bitMask;
+    private final int hashes;
+
+    public LongBloomFilter(int expectedKeys, double falsePositiveRate) {
+        if (expectedKeys < 1) {
+            throw new IllegalArgumentException("expectedKeys must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+
+        var optimalBits = -expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        var bits = MIN_BITS;
+        while (bits < optimalBits && bits < 1 << 30) {
+            bits <<= 1;
+        }
+
+        this.words = new AtomicLongArray(bits / Long.SIZE);
+        this.bitMask = bits - 1;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedKeys * Math.log(2)));
+    }
+
+    public void add(long key) {
+        var hash = mix(key);
+        var h1 = (int) hash;
+        var h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            var bit = (h1 + i * h2) & bitMask;
+            var mask = 1L << bit;
+            var word = bit >>> 6;
+            var current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    public boolean mightContain(long key) {
+        var hash = mix(key);
+        var h1 = (int) hash;
+        var h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            var bit = (h1 + i * h2) & bitMask;
+            if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // the finalizer of MurmurHash3, so keys that differ in few bits still spread
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+}
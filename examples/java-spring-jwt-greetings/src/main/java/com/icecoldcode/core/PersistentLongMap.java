@@ -0,0 +1,320 @@
+package com.icecoldcode.core;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * An immutable map from non-negative {@code long} keys to values. Changing
+ * it returns a new map that shares all but the changed path with the old
+ * one, so a map can be handed to readers as a point-in-time view without
+ * copying and without locks.
+ * <p>
+ * It is a bitmapped trie that takes the key five bits at a time from the
+ * top, so walking it visits the keys in ascending order. Nodes only have
+ * slots for children that exist, and an entry sits as high up as the keys
+ * next to it allow, so sparse keys make shallow paths. The root grows with
+ * the largest key, ids handed out in sequence stay a few levels deep.
+ */
+public final class PersistentLongMap<V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int MAX_SHIFT = 60;
+    private static final PersistentLongMap<?> EMPTY = new PersistentLongMap<>(Node.EMPTY, 0, 0);
+
+    private final Node root;
+    // the bits of the key the root indexes start at this bit
+    private final int shift;
+    private final int size;
+
+    private PersistentLongMap(Node root, int shift, int size) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentLongMap<V> empty() {
+        return (PersistentLongMap<V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (!fits(key, shift)) {
+            return null;
+        }
+        var node = root;
+        for (var s = shift; ; s -= BITS) {
+            var bit = 1 << index(key, s);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            var slot = node.slots[node.position(bit)];
+            if (slot instanceof Leaf leaf) {
+                return leaf.key == key ? (V) leaf.value : null;
+            }
+            node = (Node) slot;
+        }
+    }
+
+    /**
+     * @return a map with {@code key} mapped to {@code value}
+     */
+    public PersistentLongMap<V> put(long key, V value) {
+        if (key < 0) {
+            throw new IllegalArgumentException("key must not be negative");
+        }
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+
+        var newRoot = root;
+        var newShift = shift;
+        while (!fits(key, newShift)) {
+            // the old root becomes the first child, every key it has starts with zeros here
+            newRoot = newRoot.bitmap == 0 ? newRoot : new Node(1, new Object[]{newRoot});
+            newShift += BITS;
+        }
+        var added = get(key) == null;
+        return new PersistentLongMap<>(
+                insert(newRoot, newShift, new Leaf(key, value)),
+                newShift,
+                added ? size + 1 : size
+        );
+    }
+
+    /**
+     * @return a map without {@code key}, this map if it has no such key
+     */
+    public PersistentLongMap<V> remove(long key) {
+        if (get(key) == null) {
+            return this;
+        }
+        if (size == 1) {
+            return empty();
+        }
+
+        var rest = delete(root, shift, key);
+        var newRoot = rest instanceof Leaf leaf
+                ? new Node(1 << index(leaf.key, shift), new Object[]{leaf})
+                : (Node) rest;
+        return new PersistentLongMap<>(newRoot, shift, size - 1);
+    }
+
+    /**
+     * Passes the values of keys greater than {@code afterKey} to
+     * {@code action} in ascending key order, until it returns false.
+     */
+    public void forEachAfter(long afterKey, Predicate<? super V> action) {
+        if (afterKey < 0) {
+            visit(root, shift, 0, false, action);
+        } else if (fits(afterKey, shift)) {
+            visit(root, shift, afterKey, true, action);
+        }
+    }
+
+    /**
+     * The values in ascending key order, a view of this map that stays the
+     * same however the map it came from changes.
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static Node insert(Node node, int shift, Leaf leaf) {
+        var bit = 1 << index(leaf.key, shift);
+        var position = node.position(bit);
+        if ((node.bitmap & bit) == 0) {
+            return node.with(bit, position, leaf);
+        }
+
+        var slot = node.slots[position];
+        if (slot instanceof Leaf existing) {
+            return node.replaced(position, existing.key == leaf.key
+                    ? leaf
+                    : split(existing, leaf, shift - BITS));
+        }
+        return node.replaced(position, insert((Node) slot, shift - BITS, leaf));
+    }
+
+    /**
+     * A node for two leaves whose keys are the same above {@code shift}.
+     */
+    private static Node split(Leaf a, Leaf b, int shift) {
+        var indexA = index(a.key, shift);
+        var indexB = index(b.key, shift);
+        if (indexA == indexB) {
+            return new Node(1 << indexA, new Object[]{split(a, b, shift - BITS)});
+        }
+        return new Node(
+                (1 << indexA) | (1 << indexB),
+                indexA < indexB ? new Object[]{a, b} : new Object[]{b, a}
+        );
+    }
+
+    /**
+     * @return the node without the key, a single leaf left in it to be
+     * pulled up a level, or null if nothing is left
+     */
+    private static Object delete(Node node, int shift, long key) {
+        var bit = 1 << index(key, shift);
+        var position = node.position(bit);
+        var slot = node.slots[position];
+        var rest = slot instanceof Leaf ? null : delete((Node) slot, shift - BITS, key);
+
+        if (rest == null) {
+            if (node.slots.length == 2 && node.slots[1 - position] instanceof Leaf other) {
+                return other;
+            }
+            return node.slots.length == 1 ? null : node.without(bit, position);
+        }
+        if (rest instanceof Leaf && node.slots.length == 1) {
+            return rest;
+        }
+        return node.replaced(position, rest);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> boolean visit(Node node, int shift, long afterKey, boolean bounded, Predicate<? super V> action) {
+        var boundary = 1 << index(afterKey, shift);
+        var from = bounded ? node.position(boundary) : 0;
+        for (var position = from; position < node.slots.length; position++) {
+            var slot = node.slots[position];
+            if (slot instanceof Leaf leaf) {
+                if ((!bounded || leaf.key > afterKey) && !action.test((V) leaf.value)) {
+                    return false;
+                }
+            } else {
+                // only a child at the bound's own index is bounded, those after it lie wholly above it
+                var childBounded = bounded && position == from && (node.bitmap & boundary) != 0;
+                if (!visit((Node) slot, shift - BITS, afterKey, childBounded, action)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean fits(long key, int shift) {
+        return key >= 0 && (shift + BITS >= Long.SIZE || key >>> (shift + BITS) == 0);
+    }
+
+    private static int index(long key, int shift) {
+        return (int) (key >>> shift) & MASK;
+    }
+
+    private record Leaf(long key, Object value) {
+    }
+
+    private static final class Node {
+
+        static final Node EMPTY = new Node(0, new Object[0]);
+
+        // a bit per index that has a slot, slots are in index order
+        final int bitmap;
+        final Object[] slots;
+
+        Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        int position(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        Node with(int bit, int position, Object slot) {
+            var newSlots = new Object[slots.length + 1];
+            System.arraycopy(slots, 0, newSlots, 0, position);
+            newSlots[position] = slot;
+            System.arraycopy(slots, position, newSlots, position + 1, slots.length - position);
+            return new Node(bitmap | bit, newSlots);
+        }
+
+        Node replaced(int position, Object slot) {
+            var newSlots = slots.clone();
+            newSlots[position] = slot;
+            return new Node(bitmap, newSlots);
+        }
+
+        Node without(int bit, int position) {
+            var newSlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, position);
+            System.arraycopy(slots, position + 1, newSlots, position, slots.length - position - 1);
+            return new Node(bitmap & ~bit, newSlots);
+        }
+
+    }
+
+    private static final class ValueIterator<V> implements Iterator<V> {
+
+        // the path to the next leaf, a level per MAX_SHIFT / BITS and the root
+        private final Node[] nodes = new Node[MAX_SHIFT / BITS + 1];
+        private final int[] positions = new int[MAX_SHIFT / BITS + 1];
+        private int depth;
+        private Leaf next;
+
+        ValueIterator(Node root) {
+            nodes[0] = root;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            var value = (V) next.value;
+            advance();
+            return value;
+        }
+
+        private void advance() {
+            while (depth >= 0) {
+                var node = nodes[depth];
+                if (positions[depth] == node.slots.length) {
+                    depth--;
+                    continue;
+                }
+                var slot = node.slots[positions[depth]++];
+                if (slot instanceof Leaf leaf) {
+                    next = leaf;
+                    return;
+                }
+                depth++;
+                nodes[depth] = (Node) slot;
+                positions[depth] = 0;
+            }
+            next = null;
+        }
+
+    }
+
+}
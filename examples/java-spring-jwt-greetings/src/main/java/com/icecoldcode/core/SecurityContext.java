@@ -12,9 +12,18 @@ import java.util.Optional;
 public class SecurityContext {
 
     public Principal requirePrincipal() {
-        return (Principal) Optional.ofNullable(SecurityContextHolder.getContext().getAuthentication())
-                .map(Authentication::getPrincipal)
+        return currentPrincipal()
                 .orElseThrow(() -> new AccessDeniedException("expected principal"));
     }
 
+    /**
+     * The principal decoded from the request's jwt cookie, on the routes
+     * that have it decoded.
+     */
+    public Optional<Principal> currentPrincipal() {
+        return Optional.ofNullable(SecurityContextHolder.getContext().getAuthentication())
+                .map(Authentication::getPrincipal)
+                .map(Principal.class::cast);
+    }
+
 }
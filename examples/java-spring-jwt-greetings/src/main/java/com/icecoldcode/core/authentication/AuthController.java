@@ -1,9 +1,10 @@
 package com.icecoldcode.core.authentication;
 
+import com.icecoldcode.core.SecurityContext;
 import com.icecoldcode.core.authentication.internal.AuthenticationService;
 import com.icecoldcode.core.authentication.internal.JwtService;
+import com.icecoldcode.core.authentication.internal.TokenRevocations;
 import com.icecoldcode.core.authentication.internal.UserRepository;
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,13 +16,19 @@ class AuthController {
     private final AuthenticationService authenticationService;
     private final JwtService jwtService;
     private final UserRepository userRepository;
+    private final TokenRevocations tokenRevocations;
+    private final SecurityContext securityContext;
 
     public AuthController(AuthenticationService authenticationService,
                           JwtService jwtService,
-                          UserRepository userRepository) {
+                          UserRepository userRepository,
+                          TokenRevocations tokenRevocations,
+                          SecurityContext securityContext) {
         this.authenticationService = authenticationService;
         this.jwtService = jwtService;
         this.userRepository = userRepository;
+        this.tokenRevocations = tokenRevocations;
+        this.securityContext = securityContext;
     }
 
     @PostMapping
@@ -41,8 +48,8 @@ class AuthController {
     }
 
     @GetMapping
-    public Optional<AuthUserDto> me(HttpServletRequest request) {
-        return jwtService.principalFromCookie(request.getCookies())
+    public Optional<AuthUserDto> me() {
+        return securityContext.currentPrincipal()
                 .flatMap(principal -> userRepository.getById(principal.userId()))
                 .map(authUserEntity ->
                         new AuthUserDto(
@@ -53,8 +60,13 @@ class AuthController {
                 );
     }
 
+    /**
+     * Clears the cookie and revokes its session, so a copy of the token
+     * kept elsewhere stops working too.
+     */
     @DeleteMapping
     public void logout(HttpServletResponse response) {
+        securityContext.currentPrincipal().ifPresent(tokenRevocations::revoke);
         response.addCookie(jwtService.clearJwtCookie());
     }
 }
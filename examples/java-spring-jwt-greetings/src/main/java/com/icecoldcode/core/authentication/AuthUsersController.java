@@ -1,8 +1,13 @@
 package com.icecoldcode.core.authentication;
 
+import com.icecoldcode.core.SecurityContext;
 import com.icecoldcode.core.authentication.internal.AuthenticationService;
+import com.icecoldcode.core.authentication.internal.TokenRevocations;
+import com.icecoldcode.core.authentication.internal.UserRepository;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -12,9 +17,18 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 class AuthUsersController {
     private final AuthenticationService authenticationService;
+    private final SecurityContext securityContext;
+    private final UserRepository userRepository;
+    private final TokenRevocations tokenRevocations;
 
-    public AuthUsersController(AuthenticationService authenticationService) {
+    public AuthUsersController(AuthenticationService authenticationService,
+                               SecurityContext securityContext,
+                               UserRepository userRepository,
+                               TokenRevocations tokenRevocations) {
         this.authenticationService = authenticationService;
+        this.securityContext = securityContext;
+        this.userRepository = userRepository;
+        this.tokenRevocations = tokenRevocations;
     }
 
     @PostMapping
@@ -25,4 +39,22 @@ class AuthUsersController {
         );
     }
 
+    /**
+     * Signs a user out of every session, as when locking the account. Users
+     * can do so for themselves, admins for the users of their company.
+     */
+    @DeleteMapping("/{id}/sessions")
+    public ResponseEntity<Void> revokeSessions(@PathVariable long id) {
+        var principal = securityContext.requirePrincipal();
+
+        return userRepository.getById(id)
+                .filter(authUserEntity -> principal.userId() == id
+                        || principal.isAdmin() && principal.companyId().equals(authUserEntity.value().getCompanyId()))
+                .map(authUserEntity -> {
+                    tokenRevocations.revokeAll(id);
+                    return ResponseEntity.noContent().<Void>build();
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
 }
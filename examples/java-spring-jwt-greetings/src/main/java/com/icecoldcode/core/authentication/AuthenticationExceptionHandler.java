@@ -0,0 +1,20 @@
+package com.icecoldcode.core.authentication;
+
+import com.icecoldcode.core.authentication.internal.PasswordHashingOverloadedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+class AuthenticationExceptionHandler {
+
+    @ExceptionHandler(PasswordHashingOverloadedException.class)
+    ResponseEntity<Void> passwordHashingOverloaded(PasswordHashingOverloadedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .build();
+    }
+
+}
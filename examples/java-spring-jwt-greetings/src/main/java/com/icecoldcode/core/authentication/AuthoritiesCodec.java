@@ -3,19 +3,64 @@ package com.icecoldcode.core.authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Scanner;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+/**
+ * Converts authorities to and from their compact forms. Only the closed
+ * set of permitted roles is known; each role is one bit of an int and
+ * every combination maps to one shared, immutable set of authorities.
+ */
 public class AuthoritiesCodec {
 
+    public static final int ROLE_ADMIN = 1;
+    public static final int ROLE_USER = 1 << 1;
+
+    private static final List<GrantedAuthority> ROLES = List.of(
+            new SimpleGrantedAuthority("ROLE_ADMIN"),
+            new SimpleGrantedAuthority("ROLE_USER")
+    );
+    private static final int ALL_ROLES = (1 << ROLES.size()) - 1;
+    private static final List<Set<GrantedAuthority>> AUTHORITIES_BY_BITS = authoritiesByBits();
+
+    public static Set<GrantedAuthority> fromBits(int bits) {
+        return AUTHORITIES_BY_BITS.get(bits & ALL_ROLES);
+    }
+
+    public static int toBits(Collection<? extends GrantedAuthority> grantedAuthorities) {
+        int bits = 0;
+        for (GrantedAuthority grantedAuthority : grantedAuthorities) {
+            bits |= roleBit(grantedAuthority.getAuthority());
+        }
+        return bits;
+    }
+
+    /**
+     * @return the bit of the role, or 0 if it is not a permitted role
+     */
+    public static int roleBit(String role) {
+        for (int i = 0; i < ROLES.size(); i++) {
+            if (ROLES.get(i).getAuthority().equals(role)) {
+                return 1 << i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Parses the space-joined format of {@link #toString}. Roles that are not
+     * permitted are left out.
+     */
     public static Set<GrantedAuthority> fromString(String toParse) {
-        Scanner scanner = new Scanner(toParse);
-        Set<GrantedAuthority> authorities = new HashSet<>();
-        scanner.forEachRemaining(x -> authorities.add(new SimpleGrantedAuthority(x)));
-        return authorities;
+        int bits = 0;
+        for (String role : toParse.split(" ")) {
+            bits |= roleBit(role);
+        }
+        return fromBits(bits);
     }
 
     public static String toString(Collection<? extends GrantedAuthority> grantedAuthorities) {
@@ -24,4 +69,18 @@ public class AuthoritiesCodec {
                 .collect(Collectors.joining(" "));
     }
 
+    private static List<Set<GrantedAuthority>> authoritiesByBits() {
+        List<Set<GrantedAuthority>> byBits = new ArrayList<>(ALL_ROLES + 1);
+        for (int bits = 0; bits <= ALL_ROLES; bits++) {
+            Set<GrantedAuthority> authorities = new HashSet<>();
+            for (int i = 0; i < ROLES.size(); i++) {
+                if ((bits & (1 << i)) != 0) {
+                    authorities.add(ROLES.get(i));
+                }
+            }
+            byBits.add(Set.copyOf(authorities));
+        }
+        return List.copyOf(byBits);
+    }
+
 }
@@ -1,24 +1,18 @@
 package com.icecoldcode.core.authentication.internal;
 
+import com.icecoldcode.core.authentication.AuthoritiesCodec;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Set;
 
 public class AuthUser implements UserDetails {
 
-    private static final Set<String> PERMITTED_ROLES = Set.of(
-            "ROLE_ADMIN",
-            "ROLE_USER"
-    );
-
     private final String username;
     private final String password;
     private final String companyId;
-    private final Set<GrantedAuthority> authorities = new HashSet<>();
+    private int roles;
 
     public AuthUser(String username, String password, String companyId, Set<String> authorities) {
         this.username = username;
@@ -27,14 +21,32 @@ public class AuthUser implements UserDetails {
         authorities.forEach(this::addAuthority);
     }
 
+    /**
+     * @param roles bitmask of the roles, see {@link AuthoritiesCodec}
+     */
+    public AuthUser(String username, String password, String companyId, int roles) {
+        this.username = username;
+        this.password = password;
+        this.companyId = companyId;
+        this.roles = roles;
+    }
+
+    /**
+     * Roles that are not permitted are ignored.
+     */
     public void addAuthority(String role) {
-        if (PERMITTED_ROLES.contains(role)) {
-            authorities.add(new SimpleGrantedAuthority(role));
-        }
+        roles |= AuthoritiesCodec.roleBit(role);
     }
 
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return authorities;
+        return AuthoritiesCodec.fromBits(roles);
+    }
+
+    /**
+     * Bitmask of the roles, see {@link AuthoritiesCodec}.
+     */
+    public int getRoles() {
+        return roles;
     }
 
     public String getPassword() {
@@ -50,6 +62,6 @@ public class AuthUser implements UserDetails {
     }
 
     public boolean isAdmin() {
-        return authorities.contains(new SimpleGrantedAuthority("ROLE_ADMIN"));
+        return (roles & AuthoritiesCodec.ROLE_ADMIN) != 0;
     }
 }
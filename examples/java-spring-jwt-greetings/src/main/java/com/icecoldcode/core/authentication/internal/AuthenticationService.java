@@ -9,6 +9,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.HashSet;
+import java.util.Set;
 
 @Service
 public class AuthenticationService {
@@ -31,18 +32,37 @@ public class AuthenticationService {
     }
 
     public long createUser(CreateAuthUserDto createAuthUserDto) {
-        var roles = createAuthUserDto.roles();
+        return createUserWithEncodedPassword(
+                createAuthUserDto.username(),
+                passwordEncoder.encode(createAuthUserDto.password()),
+                createAuthUserDto.companyId(),
+                createAuthUserDto.roles()
+        );
+    }
+
+    /**
+     * Like {@link #createUser}, but with a password already encoded by the
+     * {@link PasswordEncoder}, which saves hashing it.
+     */
+    public long createUserWithEncodedPassword(String username,
+                                              String encodedPassword,
+                                              String companyId,
+                                              Set<String> roles) {
         var rolesWithUser = new HashSet<>(roles);
         rolesWithUser.add("ROLE_USER");
 
         return userRepository.save(new AuthUser(
-                createAuthUserDto.username(),
-                passwordEncoder.encode(createAuthUserDto.password()),
-                createAuthUserDto.companyId(),
+                username,
+                encodedPassword,
+                companyId,
                 rolesWithUser
         ));
     }
 
+    public boolean userExists(String username) {
+        return userRepository.getByEmail(username).isPresent();
+    }
+
     public Principal authenticate(LoginDto input) {
         try {
             authenticationConfiguration.getAuthenticationManager().authenticate(
@@ -51,6 +71,8 @@ public class AuthenticationService {
                             input.password()
                     )
             );
+        } catch (PasswordHashingOverloadedException e) {
+            throw e;
         } catch (Exception e) {
             throw new BadCredentialsException("failed to authenticate");
         }
@@ -3,9 +3,14 @@ package com.icecoldcode.core.authentication.internal;
 import com.icecoldcode.core.Clock;
 import com.icecoldcode.core.authentication.AuthoritiesCodec;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.http.Cookie;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,28 +27,54 @@ public class JwtService {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtService.class);
     private static final String JWT_COOKIE_NAME = "jwt";
+    private static final String ROLES_CLAIM = "rol";
+    // tokens issued before roles became a bitmask, accepted until they expire
+    private static final String LEGACY_AUTHORITIES_CLAIM = "authorities";
     private final Clock clock;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocations tokenRevocations;
     @Value("${security.jwt.secret-key}")
     private String secretKey;
-    @Value("${security.jwt.expiration-minutes}")
-    private long jwtExpirationMinutes;
+    private volatile Key signingKey;
+    private volatile JwtParser jwtParser;
+    private final Timer signTimer;
+    private final Timer verifySuccessTimer;
+    private final Timer verifyFailureTimer;
 
-    public JwtService(Clock clock) {
+    public JwtService(Clock clock,
+                      VerifiedTokenCache verifiedTokenCache,
+                      TokenRevocations tokenRevocations,
+                      MeterRegistry meterRegistry) {
         this.clock = clock;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.tokenRevocations = tokenRevocations;
+        this.signTimer = Timer.builder("jwt.sign")
+                .description("Signing a new jwt")
+                .register(meterRegistry);
+        this.verifySuccessTimer = verifyTimer(meterRegistry, "success");
+        this.verifyFailureTimer = verifyTimer(meterRegistry, "failure");
+
+        FunctionCounter.builder("jwt.cache.requests", verifiedTokenCache, VerifiedTokenCache::hits)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("jwt.cache.requests", verifiedTokenCache, VerifiedTokenCache::misses)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("jwt.cache.size", verifiedTokenCache, VerifiedTokenCache::size)
+                .register(meterRegistry);
     }
 
     public Cookie generateJwtCookie(Principal principal) {
-        var jwt = Jwts
+        var jwt = signTimer.record(() -> Jwts
                 .builder()
+                .setId(principal.tokenId() == 0 ? null : Long.toHexString(principal.tokenId()))
                 .claim("cid", principal.companyId())
-                .claim("authorities", AuthoritiesCodec.toString(
-                        principal.authorities())
-                )
+                .claim(ROLES_CLAIM, principal.roles())
                 .setSubject(String.valueOf(principal.userId()))
                 .setIssuedAt(Date.from(principal.issuedAt()))
                 .setExpiration(Date.from(principal.expiresAt()))
                 .signWith(getSigningKey())
-                .compact();
+                .compact());
 
         Cookie cookie = new Cookie(JWT_COOKIE_NAME, jwt);
         cookie.setMaxAge(
@@ -58,14 +89,6 @@ public class JwtService {
         return cookie;
     }
 
-    public Cookie generateJwtCookieWithNewExpires(Principal principal) {
-        return generateJwtCookie(
-                principal.withExpiresAt(
-                        clock.now().plus(Duration.ofMinutes(jwtExpirationMinutes))
-                )
-        );
-    }
-
     public Cookie clearJwtCookie() {
         Cookie cookie = new Cookie(JWT_COOKIE_NAME, "");
         cookie.setMaxAge(0);
@@ -82,39 +105,89 @@ public class JwtService {
 
         for (Cookie cookie : cookies) {
             if (JWT_COOKIE_NAME.equals(cookie.getName())) {
-                return Optional.of(cookie.getValue())
-                        .flatMap(this::getClaims)
-                        .map(claims ->
-                                new Principal(
-                                        Long.parseLong(claims.getSubject()),
-                                        claims.get("cid", String.class),
-                                        AuthoritiesCodec.fromString(
-                                                claims.get("authorities", String.class)
-                                        ),
-                                        claims.getIssuedAt().toInstant(),
-                                        claims.getExpiration().toInstant()
-                                )
-                        );
+                return verifiedTokenCache.get(cookie.getValue(), this::principalFromJwt)
+                        .filter(principal -> !tokenRevocations.isRevoked(principal));
             }
         }
         return Optional.empty();
     }
 
+    private Optional<Principal> principalFromJwt(String jwt) {
+        return getClaims(jwt).map(claims ->
+                new Principal(
+                        Long.parseLong(claims.getSubject()),
+                        claims.get("cid", String.class),
+                        roles(claims),
+                        claims.getIssuedAt().toInstant(),
+                        claims.getExpiration().toInstant(),
+                        tokenId(claims)
+                )
+        );
+    }
+
+    private static long tokenId(Claims claims) {
+        var id = claims.getId();
+        if (id == null) {
+            return 0;
+        }
+        try {
+            return Long.parseUnsignedLong(id, 16);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static int roles(Claims claims) {
+        var roles = claims.get(ROLES_CLAIM, Integer.class);
+        if (roles != null) {
+            return roles;
+        }
+        var authorities = claims.get(LEGACY_AUTHORITIES_CLAIM, String.class);
+        if (authorities == null) {
+            return 0;
+        }
+        return AuthoritiesCodec.toBits(AuthoritiesCodec.fromString(authorities));
+    }
+
     private Optional<Claims> getClaims(String jwt) {
+        var sample = Timer.start();
         try {
-            return Optional.of(Jwts
-                    .parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
+            var claims = getJwtParser()
                     .parseClaimsJws(jwt)
-                    .getBody());
+                    .getBody();
+            sample.stop(verifySuccessTimer);
+            return Optional.of(claims);
         } catch (Exception e) {
+            sample.stop(verifyFailureTimer);
             logger.warn("failed to get claims: {}", e.getMessage());
             return Optional.empty();
         }
     }
 
+    private static Timer verifyTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("jwt.verify")
+                .description("Verifying and parsing a jwt not found in the cache")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private JwtParser getJwtParser() {
+        var parser = jwtParser;
+        if (parser == null) {
+            parser = Jwts.parserBuilder()
+                    .setSigningKey(getSigningKey())
+                    .build();
+            jwtParser = parser;
+        }
+        return parser;
+    }
+
     private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        var key = signingKey;
+        if (key == null) {
+            key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+            signingKey = key;
+        }
+        return key;
     }
 }
@@ -0,0 +1,112 @@
+package com.icecoldcode.core.authentication.internal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing (BCrypt) on a small pool of its own, so a burst of
+ * logins can not occupy every request thread. Once the bounded queue is
+ * full, work is rejected right away with {@link PasswordHashingOverloadedException}.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+    private final Timer hashTimer;
+    private final Counter rejections;
+
+    public PasswordHashingExecutor(
+            @Value("${security.password-hashing.threads:0}") int threads,
+            @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${security.password-hashing.retry-after-seconds:1}") long retryAfterSeconds,
+            MeterRegistry meterRegistry
+    ) {
+        var poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        var threadNumber = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    var thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        this.hashTimer = Timer.builder("auth.password.hash")
+                .description("Hashing or matching a password, not counting time in the queue")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("auth.password.hash.rejected")
+                .description("Password hashing turned away because the queue was full")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.hash.queue", this, PasswordHashingExecutor::queueDepth)
+                .description("Password hashing waiting for a thread")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the hashing on the pool and waits for its result.
+     *
+     * @throws PasswordHashingOverloadedException if the queue is full
+     */
+    public <T> T run(Supplier<T> hashing) {
+        Future<T> result;
+        try {
+            result = executor.submit(() -> hashTimer.record(hashing));
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new PasswordHashingOverloadedException(retryAfterSeconds);
+        }
+
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("password hashing failed", e.getCause());
+        }
+    }
+
+    /**
+     * Hashing work waiting for a thread.
+     */
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public long hashes() {
+        return hashTimer.count();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.icecoldcode.core.authentication.internal;
+
+/**
+ * Thrown when password hashing is rejected because too much of it is already queued.
+ */
+public class PasswordHashingOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingOverloadedException(long retryAfterSeconds) {
+        super("too many password hashing requests");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+}
@@ -1,31 +1,45 @@
 package com.icecoldcode.core.authentication.internal;
 
+import com.icecoldcode.core.authentication.AuthoritiesCodec;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import java.time.Instant;
 import java.util.Collection;
 import java.util.Objects;
+import java.util.Set;
 
+/**
+ * @param roles   bitmask of the roles, see {@link AuthoritiesCodec}
+ * @param tokenId identifies the session, it is kept when the token is
+ *                re-issued; 0 for tokens issued without one
+ */
 public record Principal(long userId,
                         String companyId,
-                        Collection<? extends GrantedAuthority> authorities,
+                        int roles,
                         Instant issuedAt,
-                        Instant expiresAt) {
+                        Instant expiresAt,
+                        long tokenId) {
 
     public Principal {
         Objects.requireNonNull(companyId);
-        Objects.requireNonNull(authorities);
         Objects.requireNonNull(issuedAt);
         Objects.requireNonNull(expiresAt);
     }
 
-    Principal withExpiresAt(Instant newExpiresAt) {
-        return new Principal(userId, companyId, authorities, issuedAt, newExpiresAt);
+    public Principal(long userId,
+                     String companyId,
+                     Collection<? extends GrantedAuthority> authorities,
+                     Instant issuedAt,
+                     Instant expiresAt) {
+        this(userId, companyId, AuthoritiesCodec.toBits(authorities), issuedAt, expiresAt, 0);
+    }
+
+    public Set<GrantedAuthority> authorities() {
+        return AuthoritiesCodec.fromBits(roles);
     }
 
     public boolean isAdmin() {
-        return authorities.contains(new SimpleGrantedAuthority("ROLE_ADMIN"));
+        return (roles & AuthoritiesCodec.ROLE_ADMIN) != 0;
     }
 
 }
@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 public class PrincipalFactory {
@@ -18,15 +19,26 @@ public class PrincipalFactory {
         this.clock = clock;
     }
 
+    /**
+     * A principal for a new session.
+     */
     public Principal fromAuthUser(Entity<AuthUser> authUser) {
+        return fromAuthUser(authUser, ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE));
+    }
+
+    /**
+     * A principal for a token re-issued within the session {@code tokenId}.
+     */
+    public Principal fromAuthUser(Entity<AuthUser> authUser, long tokenId) {
         var now = clock.now();
 
         return new Principal(
                 authUser.id(),
                 authUser.value().getCompanyId(),
-                authUser.value().getAuthorities(),
+                authUser.value().getRoles(),
                 now,
-                now.plus(Duration.ofMinutes(jwtExpirationMinutes))
+                now.plus(Duration.ofMinutes(jwtExpirationMinutes)),
+                tokenId
         );
     }
 
@@ -0,0 +1,196 @@
+package com.icecoldcode.core.authentication.internal;
+
+import com.icecoldcode.core.Clock;
+import com.icecoldcode.core.LongBloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tokens that must no longer be accepted although their signature is valid
+ * and they have not expired: single sessions, by the token id they keep
+ * across renewals, and every session of a user issued up to some point.
+ * <p>
+ * Every authenticated request asks, and almost always the answer is no.
+ * Revocations are therefore also added to a Bloom filter, and only a probable
+ * hit there is looked up in the exact maps. No token issued before a
+ * revocation outlives it by more than the token lifetime, so that is how
+ * long revocations are kept. Bloom filters can not forget single keys, so
+ * there are two: new revocations go into the current one, which becomes
+ * the previous one after a token lifetime and is dropped after another.
+ */
+@Component
+public class TokenRevocations {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    // keeps user ids from sharing Bloom filter bits with the token ids they equal
+    private static final long USER_KEY_SALT = 0x5DEECE66DL;
+
+    private final Clock clock;
+    private final Duration retention;
+    private final int expectedRevocations;
+    private final Map<Long, Instant> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<Long, UserRevocation> revokedUsers = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Filters filters;
+    private final Counter lookups;
+    private final Counter falsePositives;
+
+    public TokenRevocations(
+            Clock clock,
+            @Value("${security.jwt.expiration-minutes}") long jwtExpirationMinutes,
+            @Value("${security.jwt.revocation.expected-entries:10000}") int expectedRevocations,
+            MeterRegistry meterRegistry
+    ) {
+        this.clock = clock;
+        this.retention = Duration.ofMinutes(jwtExpirationMinutes);
+        this.expectedRevocations = expectedRevocations;
+        this.filters = new Filters(
+                new LongBloomFilter(expectedRevocations, FALSE_POSITIVE_RATE),
+                new LongBloomFilter(expectedRevocations, FALSE_POSITIVE_RATE),
+                clock.now().plus(retention)
+        );
+
+        this.lookups = Counter.builder("jwt.revocation.lookups")
+                .description("Tokens looked up among the revocations after a Bloom filter hit")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("jwt.revocation.false-positives")
+                .description("Bloom filter hits for tokens that were not revoked")
+                .register(meterRegistry);
+        Gauge.builder("jwt.revocation.size", this, TokenRevocations::size)
+                .description("Revocations kept")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Revokes the session of the principal, including tokens renewed or
+     * re-issued from it. A token from before token ids has no session to
+     * revoke, only that token is revoked, until it expires.
+     */
+    public void revoke(Principal principal) {
+        writeLock.lock();
+        try {
+            var now = clock.now();
+            var current = filters(now);
+            var tokenId = tokenId(principal);
+            revokedTokens.put(tokenId, principal.tokenId() == 0 ? principal.expiresAt() : now.plus(retention));
+            current.current().add(tokenId);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Revokes every session of the user issued before the current second.
+     * Tokens only say which second they were issued in, so one issued
+     * earlier in this second can not be told from one issued after the
+     * revocation, and both are kept.
+     */
+    public void revokeAll(long userId) {
+        writeLock.lock();
+        try {
+            var now = clock.now();
+            var current = filters(now);
+            revokedUsers.put(userId, new UserRevocation(now.truncatedTo(ChronoUnit.SECONDS), now.plus(retention)));
+            current.current().add(userKey(userId));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean isRevoked(Principal principal) {
+        var current = filters;
+        if (!current.rotateAt().isAfter(clock.now())) {
+            writeLock.lock();
+            try {
+                current = filters(clock.now());
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        var tokenId = tokenId(principal);
+        if (current.mightContain(tokenId)) {
+            lookups.increment();
+            if (revokedTokens.containsKey(tokenId)) {
+                return true;
+            }
+            falsePositives.increment();
+        }
+        if (current.mightContain(userKey(principal.userId()))) {
+            lookups.increment();
+            var revocation = revokedUsers.get(principal.userId());
+            if (revocation != null && principal.issuedAt().isBefore(revocation.issuedFrom())) {
+                return true;
+            }
+            falsePositives.increment();
+        }
+        return false;
+    }
+
+    /**
+     * The filters to use at {@code now}, rotating them and dropping
+     * revocations that have lapsed if it is time. Called holding the lock.
+     */
+    private Filters filters(Instant now) {
+        var current = filters;
+        if (current.rotateAt().isAfter(now)) {
+            return current;
+        }
+
+        current = new Filters(
+                new LongBloomFilter(expectedRevocations, FALSE_POSITIVE_RATE),
+                current.current(),
+                now.plus(retention)
+        );
+        revokedTokens.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+        revokedUsers.values().removeIf(revocation -> !revocation.expiresAt().isAfter(now));
+        filters = current;
+        return current;
+    }
+
+    private int size() {
+        return revokedTokens.size() + revokedUsers.size();
+    }
+
+    /**
+     * The token id, or for a token without one an id made from its user and
+     * when it was issued. Those are negative, token ids never are.
+     */
+    private static long tokenId(Principal principal) {
+        if (principal.tokenId() != 0) {
+            return principal.tokenId();
+        }
+        var key = principal.userId() * 0x9E3779B97F4A7C15L ^ principal.issuedAt().getEpochSecond();
+        return (key ^ (key >>> 31)) | Long.MIN_VALUE;
+    }
+
+    private static long userKey(long userId) {
+        return userId ^ USER_KEY_SALT;
+    }
+
+    private record Filters(LongBloomFilter current, LongBloomFilter previous, Instant rotateAt) {
+
+        boolean mightContain(long key) {
+            return current.mightContain(key) || previous.mightContain(key);
+        }
+
+    }
+
+    /**
+     * @param issuedFrom the first second tokens may be issued in, those
+     *                   issued before it are revoked
+     */
+    private record UserRevocation(Instant issuedFrom, Instant expiresAt) {
+    }
+
+}
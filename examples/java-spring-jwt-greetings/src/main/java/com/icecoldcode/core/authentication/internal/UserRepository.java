@@ -2,11 +2,18 @@ package com.icecoldcode.core.authentication.internal;
 
 import com.icecoldcode.core.Entity;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 public interface UserRepository {
     Optional<Entity<AuthUser>> getById(long id);
 
+    /**
+     * Resolves many users in one go. Ids without a user are left out of the result.
+     */
+    Map<Long, Entity<AuthUser>> getByIds(Collection<Long> ids);
+
     Optional<Entity<AuthUser>> getByEmail(String email);
 
     long save(AuthUser authUser);
@@ -0,0 +1,110 @@
+package com.icecoldcode.core.authentication.internal;
+
+import com.icecoldcode.core.Clock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Remembers principals of tokens whose signature has already been verified,
+ * so a cookie sent again is not parsed and verified once more.
+ * <p>
+ * Entries are keyed by a SHA-256 digest of the token (the token itself is
+ * never kept) and are dropped as soon as the token's expiry has passed.
+ */
+@Component
+class VerifiedTokenCache {
+
+    private final Clock clock;
+    private final int maximumSize;
+    private final Map<String, Principal> principals = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    VerifiedTokenCache(Clock clock,
+                       @Value("${security.jwt.token-cache-size:10000}") int maximumSize) {
+        this.clock = clock;
+        this.maximumSize = maximumSize;
+    }
+
+    Optional<Principal> get(String jwt, Function<String, Optional<Principal>> verifier) {
+        var key = digest(jwt);
+        var now = clock.now();
+        var cached = principals.get(key);
+
+        if (cached != null) {
+            if (isValid(cached, now)) {
+                hits.increment();
+                return Optional.of(cached);
+            }
+            principals.remove(key, cached);
+        }
+
+        misses.increment();
+        var verified = verifier.apply(jwt);
+        verified.filter(principal -> isValid(principal, now))
+                .ifPresent(principal -> put(key, principal, now));
+        return verified;
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    int size() {
+        return principals.size();
+    }
+
+    private void put(String key, Principal principal, Instant now) {
+        if (principals.size() >= maximumSize) {
+            evict(now);
+        }
+        principals.put(key, principal);
+    }
+
+    private void evict(Instant now) {
+        principals.values().removeIf(principal -> !isValid(principal, now));
+        if (principals.size() < maximumSize) {
+            return;
+        }
+
+        // Still full of live tokens, make room for roughly a tenth of the cache
+        Iterator<String> keys = principals.keySet().iterator();
+        var toRemove = principals.size() - maximumSize + Math.max(1, maximumSize / 10);
+        while (toRemove-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static boolean isValid(Principal principal, Instant now) {
+        return principal.expiresAt().isAfter(now);
+    }
+
+    private static String digest(String jwt) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256")
+                            .digest(jwt.getBytes(StandardCharsets.US_ASCII))
+            );
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+}
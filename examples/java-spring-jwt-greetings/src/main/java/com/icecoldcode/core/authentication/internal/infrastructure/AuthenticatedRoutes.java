@@ -0,0 +1,64 @@
+package com.icecoldcode.core.authentication.internal.infrastructure;
+
+import java.util.List;
+
+/**
+ * The requests that need to know who is asking, and so have their jwt
+ * cookie decoded by {@link JwtAuthenticationFilter}. Matching compares
+ * the method and path in place, without splitting or copying the path.
+ */
+class AuthenticatedRoutes {
+
+    private final List<Route> routes;
+
+    private AuthenticatedRoutes(List<Route> routes) {
+        this.routes = routes;
+    }
+
+    static AuthenticatedRoutes of(Route... routes) {
+        return new AuthenticatedRoutes(List.of(routes));
+    }
+
+    boolean matches(String method, String path) {
+        for (var route : routes) {
+            if (route.matches(method, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param method the HTTP method, or null for any
+     * @param path   the path, or with {@code under} the path and everything below it
+     */
+    record Route(String method, String path, boolean under) {
+
+        static Route any(String path) {
+            return new Route(null, path, true);
+        }
+
+        static Route exact(String method, String path) {
+            return new Route(method, path, false);
+        }
+
+        static Route under(String method, String path) {
+            return new Route(method, path, true);
+        }
+
+        boolean matches(String requestMethod, String requestPath) {
+            if (method != null && !method.equals(requestMethod)) {
+                return false;
+            }
+            if (!requestPath.startsWith(path)) {
+                return false;
+            }
+            if (requestPath.length() == path.length()) {
+                return true;
+            }
+            return under && requestPath.charAt(path.length()) == '/';
+        }
+
+    }
+
+}
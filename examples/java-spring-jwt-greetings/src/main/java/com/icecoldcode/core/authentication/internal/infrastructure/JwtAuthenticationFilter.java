@@ -5,6 +5,8 @@ import com.icecoldcode.core.authentication.internal.JwtService;
 import com.icecoldcode.core.authentication.internal.Principal;
 import com.icecoldcode.core.authentication.internal.PrincipalFactory;
 import com.icecoldcode.core.authentication.internal.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -18,43 +20,62 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.time.Duration;
-import java.util.Set;
 
 @Component
 class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private static final Set<String> ROOTS_TO_RUN_ON = Set.of(
-            "api"
+    private static final AuthenticatedRoutes AUTHENTICATED_ROUTES = AuthenticatedRoutes.of(
+            AuthenticatedRoutes.Route.any("/api"),
+            AuthenticatedRoutes.Route.any("/actuator"),
+            AuthenticatedRoutes.Route.exact("GET", "/auth"),
+            AuthenticatedRoutes.Route.exact("DELETE", "/auth"),
+            AuthenticatedRoutes.Route.under("DELETE", "/auth/users")
     );
     private final JwtService jwtService;
     private final Clock clock;
     private final UserRepository userRepository;
     private final PrincipalFactory principalFactory;
-    @Value("${security.jwt.renew-minutes}")
-    private long jwtRenewMinutes;
+    private final Counter reissuedCookies;
+    private final Counter keptCookies;
+    private final Counter clearedCookies;
+    private final Duration reissueAfter;
 
+    /**
+     * @param jwtReissueAfterFraction the part of a cookie's lifetime after
+     *                                which it is re-issued, with the user and
+     *                                roles read afresh and a new expiry
+     */
     JwtAuthenticationFilter(
             JwtService jwtService,
             Clock clock,
             UserRepository userRepository,
-            PrincipalFactory principalFactory
+            PrincipalFactory principalFactory,
+            MeterRegistry meterRegistry,
+            @Value("${security.jwt.expiration-minutes}") long jwtExpirationMinutes,
+            @Value("${security.jwt.reissue-after-fraction:0.5}") double jwtReissueAfterFraction
     ) {
         this.jwtService = jwtService;
         this.clock = clock;
         this.userRepository = userRepository;
         this.principalFactory = principalFactory;
+        this.reissuedCookies = cookieCounter(meterRegistry, "reissued");
+        this.keptCookies = cookieCounter(meterRegistry, "kept");
+        this.clearedCookies = cookieCounter(meterRegistry, "cleared");
+        this.reissueAfter = Duration.ofMillis(
+                (long) (Duration.ofMinutes(jwtExpirationMinutes).toMillis() * jwtReissueAfterFraction)
+        );
     }
 
+    /**
+     * Only requests that need to know who is asking decode the cookie, and
+     * they do so here, once. Handlers read the principal from the security
+     * context instead of the cookie.
+     */
     @Override
     protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
         return SecurityContextHolder.getContext().getAuthentication() != null
                 || request.getCookies() == null
-                || !ROOTS_TO_RUN_ON.contains(getRoot(request));
-    }
-
-    private String getRoot(@NonNull HttpServletRequest request) {
-        var parts = request.getRequestURI().split("/");
-        return parts.length > 1 ? parts[1] : "";
+                || !AUTHENTICATED_ROUTES.matches(request.getMethod(), request.getRequestURI());
     }
 
     @Override
@@ -73,31 +94,43 @@ class JwtAuthenticationFilter extends OncePerRequestFilter {
                             )
                     );
 
-                    if (issuedLongAgo(principal)) {
-                        userRepository.getById(principal.userId())
-                                .map(principalFactory::fromAuthUser)
-                                .map(jwtService::generateJwtCookie)
-                                .ifPresentOrElse(
-                                        response::addCookie,
-                                        () -> {
-                                            // Could not load user!
-                                            response.addCookie(jwtService.clearJwtCookie());
-                                            SecurityContextHolder.clearContext();
-                                        }
-                                );
-                    } else {
-                        response.addCookie(jwtService.generateJwtCookieWithNewExpires(principal));
+                    if (!dueForReissue(principal)) {
+                        keptCookies.increment();
+                        return;
                     }
-
+                    userRepository.getById(principal.userId())
+                            .map(authUser -> principalFactory.fromAuthUser(authUser, principal.tokenId()))
+                            .map(jwtService::generateJwtCookie)
+                            .ifPresentOrElse(
+                                    cookie -> {
+                                        response.addCookie(cookie);
+                                        reissuedCookies.increment();
+                                    },
+                                    () -> {
+                                        // Could not load user!
+                                        response.addCookie(jwtService.clearJwtCookie());
+                                        SecurityContextHolder.clearContext();
+                                        clearedCookies.increment();
+                                    }
+                            );
                 });
 
         filterChain.doFilter(request, response);
     }
 
-    private boolean issuedLongAgo(Principal principal) {
-        return principal.issuedAt().isBefore(
-                clock.now().minus(Duration.ofMinutes(jwtRenewMinutes))
-        );
+    /**
+     * Sliding expiry: a cookie is only replaced once the configured part of
+     * its lifetime has passed, not on every request.
+     */
+    private boolean dueForReissue(Principal principal) {
+        return !clock.now().isBefore(principal.issuedAt().plus(reissueAfter));
+    }
+
+    private static Counter cookieCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("jwt.cookie")
+                .description("Authenticated requests, by whether their jwt cookie was kept, re-issued or cleared")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
 }
@@ -0,0 +1,110 @@
+package com.icecoldcode.core.authentication.internal.infrastructure;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.icecoldcode.core.Entity;
+import com.icecoldcode.core.authentication.internal.AuthUser;
+import com.icecoldcode.core.authentication.internal.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Read-through cache in front of another {@link UserRepository}.
+ * <p>
+ * Eviction is frequency aware (Caffeine's W-TinyLFU), so a burst of one-off
+ * lookups does not push out the users that are looked up all the time.
+ * Concurrent misses for the same user share a single load, and users that
+ * do not exist are not cached.
+ */
+class UserRepositoryCaching implements UserRepository, AutoCloseable {
+
+    private final UserRepository delegate;
+    private final LoadingCache<Long, Entity<AuthUser>> byId;
+    private final Cache<String, Entity<AuthUser>> byEmail;
+
+    UserRepositoryCaching(UserRepository delegate, long maximumSize, Duration ttl) {
+        this.delegate = delegate;
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build(new CacheLoader<Long, Entity<AuthUser>>() {
+                    @Override
+                    public Entity<AuthUser> load(Long id) {
+                        return delegate.getById(id).orElse(null);
+                    }
+
+                    @Override
+                    public Map<Long, Entity<AuthUser>> loadAll(Set<? extends Long> ids) {
+                        return delegate.getByIds(Set.copyOf(ids));
+                    }
+                });
+        this.byEmail = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Optional<Entity<AuthUser>> getById(long id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    @Override
+    public Map<Long, Entity<AuthUser>> getByIds(Collection<Long> ids) {
+        return byId.getAll(ids);
+    }
+
+    @Override
+    public Optional<Entity<AuthUser>> getByEmail(String email) {
+        return Optional.ofNullable(byEmail.get(email, key -> delegate.getByEmail(key).orElse(null)));
+    }
+
+    @Override
+    public long save(AuthUser authUser) {
+        var id = delegate.save(authUser);
+        byId.invalidate(id);
+        byEmail.invalidate(authUser.getUsername());
+        return id;
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    /**
+     * Publishes the stats of both caches as {@code cache.*} meters.
+     */
+    void bindTo(MeterRegistry meterRegistry) {
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "users.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, byEmail, "users.byEmail");
+    }
+
+    /**
+     * Hit ratio, load times and eviction counts of lookups by id.
+     */
+    CacheStats byIdStats() {
+        return byId.stats();
+    }
+
+    /**
+     * Hit ratio, load times and eviction counts of lookups by email.
+     */
+    CacheStats byEmailStats() {
+        return byEmail.stats();
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.icecoldcode.core.authentication.internal.infrastructure;
+
+import com.icecoldcode.core.authentication.internal.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+class UserRepositoryConfig {
+
+    @Bean
+    UserRepository userRepository(
+            @Value("${users.cache.maximum-size:10000}") long maximumSize,
+            @Value("${users.cache.ttl:10m}") Duration ttl,
+            @Value("${users.store:memory}") String store,
+            @Value("${users.file.directory:data/users}") Path directory,
+            MeterRegistry meterRegistry
+    ) throws IOException {
+        UserRepository stored = switch (store) {
+            case "memory" -> new UserRepositoryInMemory();
+            case "file" -> new UserRepositoryFile(directory);
+            default -> throw new IllegalArgumentException("unknown users.store: " + store);
+        };
+        var userRepository = new UserRepositoryCaching(stored, maximumSize, ttl);
+        userRepository.bindTo(meterRegistry);
+        return userRepository;
+    }
+
+}
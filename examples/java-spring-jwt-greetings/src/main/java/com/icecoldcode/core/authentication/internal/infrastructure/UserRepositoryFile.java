@@ -0,0 +1,426 @@
+package com.icecoldcode.core.authentication.internal.infrastructure;
+
+import com.icecoldcode.core.Entity;
+import com.icecoldcode.core.authentication.internal.AuthUser;
+import com.icecoldcode.core.authentication.internal.UserRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps users in a file of fixed-size records, so the id of a user is its
+ * position in the file and the file is its own id index. A second file holds
+ * an open-addressing table from email to id. Both are memory-mapped: lookups
+ * read only the pages they touch, and startup maps the files instead of
+ * loading them, whatever the number of users.
+ * <p>
+ * A user is committed once the record count in the header covers it. The
+ * email index is forced to disk only at checkpoints, on startup, when it
+ * grows and on close, and its header records how many users it covered
+ * then. Users saved after the last checkpoint are indexed again on startup,
+ * whichever of their slots made it to disk. A header of zeros, left by a
+ * crash while a file was first created, is taken for an empty file.
+ * <p>
+ * Reads take no lock. Saves are serialized and publish through {@link #count}.
+ */
+class UserRepositoryFile implements UserRepository, AutoCloseable {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int USERS_MAGIC = 0x55535253;
+    private static final int INDEX_MAGIC = 0x55534958;
+
+    // records, with the header taking the place of id 0
+    private static final int RECORD_SIZE = 256;
+    private static final int ROLES = 0;
+    private static final int USERNAME = 4;
+    private static final int USERNAME_MAX = 96;
+    private static final int PASSWORD = USERNAME + 2 + USERNAME_MAX;
+    private static final int PASSWORD_MAX = 72;
+    private static final int COMPANY_ID = PASSWORD + 2 + PASSWORD_MAX;
+    private static final int COMPANY_ID_MAX = 64;
+    private static final int COUNT = 8;
+    private static final int CHUNK_BITS = 16;
+    private static final long CHUNK_SIZE = (long) RECORD_SIZE << CHUNK_BITS;
+
+    // email index: header, then slots of [hash][id]
+    private static final int INDEX_HEADER_SIZE = 32;
+    private static final int INDEX_CAPACITY = 8;
+    private static final int INDEX_INDEXED_COUNT = 16;
+    private static final int INDEX_USED_SLOTS = 24;
+    private static final int SLOT_SIZE = 8;
+    private static final int INITIAL_INDEX_CAPACITY = 1 << 12;
+
+    private static final String USERS_FILE = "users.dat";
+    private static final String INDEX_FILE = "users-email.idx";
+
+    private final Path directory;
+    private final FileChannel usersChannel;
+    // not synchronized, forcing to disk under a monitor would pin a virtual thread's carrier
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile MappedByteBuffer[] chunks;
+    private volatile MappedByteBuffer index;
+    private volatile long count;
+    // guarded by writeLock
+    private int indexCapacity;
+    private long indexedSlots;
+    private long indexedCount;
+
+    UserRepositoryFile(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+
+        usersChannel = FileChannel.open(
+                directory.resolve(USERS_FILE),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        );
+        chunks = new MappedByteBuffer[]{mapChunk(0)};
+        var header = chunks[0];
+        if (header.getInt(0) == 0) {
+            header.putInt(0, USERS_MAGIC).putInt(4, FORMAT_VERSION).putLong(COUNT, 0);
+            header.force(0, RECORD_SIZE);
+        } else {
+            checkHeader(header, USERS_MAGIC, USERS_FILE);
+        }
+        var storedCount = header.getLong(COUNT);
+        var chunkCount = (int) (storedCount >>> CHUNK_BITS) + 1;
+        var mapped = Arrays.copyOf(chunks, chunkCount);
+        for (int i = 1; i < chunkCount; i++) {
+            mapped[i] = mapChunk(i);
+        }
+        chunks = mapped;
+        count = storedCount;
+
+        openIndex();
+    }
+
+    @Override
+    public Optional<Entity<AuthUser>> getById(long id) {
+        if (id <= 0 || id > count) {
+            return Optional.empty();
+        }
+        return Optional.of(new Entity<>(id, readUser(id)));
+    }
+
+    @Override
+    public Map<Long, Entity<AuthUser>> getByIds(Collection<Long> ids) {
+        var committed = count;
+        Map<Long, Entity<AuthUser>> users = new HashMap<>();
+        for (Long id : ids) {
+            if (id > 0 && id <= committed) {
+                users.put(id, new Entity<>(id, readUser(id)));
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public Optional<Entity<AuthUser>> getByEmail(String email) {
+        var committed = count;
+        var id = findId(index, email.getBytes(StandardCharsets.UTF_8), committed);
+        if (id == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new Entity<>(id, readUser(id)));
+    }
+
+    @Override
+    public long save(AuthUser authUser) {
+        var username = bytes(authUser.getUsername(), USERNAME_MAX, "username");
+        var password = bytes(authUser.getPassword(), PASSWORD_MAX, "password");
+        var companyId = bytes(authUser.getCompanyId(), COMPANY_ID_MAX, "companyId");
+
+        writeLock.lock();
+        try {
+            var id = count + 1;
+            var chunk = chunkFor(id);
+            var offset = offsetOf(id);
+            chunk.putInt(offset + ROLES, authUser.getRoles());
+            putString(chunk, offset + USERNAME, username);
+            putString(chunk, offset + PASSWORD, password);
+            putString(chunk, offset + COMPANY_ID, companyId);
+            chunk.force(offset, RECORD_SIZE);
+
+            var header = chunks[0];
+            header.putLong(COUNT, id);
+            header.force(0, RECORD_SIZE);
+            index(username, id);
+            count = id;
+            return id;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            checkpoint();
+            usersChannel.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private AuthUser readUser(long id) {
+        var chunk = chunks[(int) (id >>> CHUNK_BITS)];
+        var offset = offsetOf(id);
+        return new AuthUser(
+                getString(chunk, offset + USERNAME),
+                getString(chunk, offset + PASSWORD),
+                getString(chunk, offset + COMPANY_ID),
+                chunk.getInt(offset + ROLES)
+        );
+    }
+
+    private MappedByteBuffer chunkFor(long id) {
+        var chunkNumber = (int) (id >>> CHUNK_BITS);
+        if (chunkNumber < chunks.length) {
+            return chunks[chunkNumber];
+        }
+        var grown = Arrays.copyOf(chunks, chunkNumber + 1);
+        grown[chunkNumber] = mapChunk(chunkNumber);
+        chunks = grown;
+        return grown[chunkNumber];
+    }
+
+    private MappedByteBuffer mapChunk(int chunkNumber) {
+        try {
+            return usersChannel.map(FileChannel.MapMode.READ_WRITE, chunkNumber * CHUNK_SIZE, CHUNK_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to map " + USERS_FILE, e);
+        }
+    }
+
+    private static int offsetOf(long id) {
+        return (int) (id & ((1 << CHUNK_BITS) - 1)) * RECORD_SIZE;
+    }
+
+    /**
+     * @return the id of the user with the email, or 0 if there is none
+     */
+    private long findId(MappedByteBuffer table, byte[] email, long committed) {
+        var capacity = table.getInt(INDEX_CAPACITY);
+        var mask = capacity - 1;
+        var hash = hash(email);
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            var position = INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+            var slotHash = table.getInt(position);
+            if (slotHash == 0) {
+                return 0;
+            }
+            if (slotHash == hash) {
+                long id = table.getInt(position + 4);
+                // a slot being written, or pointing at a user not yet committed, is skipped
+                if (id > 0 && id <= committed && hasUsername(id, email)) {
+                    return id;
+                }
+            }
+        }
+    }
+
+    private boolean hasUsername(long id, byte[] email) {
+        var chunk = chunks[(int) (id >>> CHUNK_BITS)];
+        var offset = offsetOf(id) + USERNAME;
+        var length = chunk.getShort(offset);
+        if (length != email.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (chunk.get(offset + 2 + i) != email[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void index(byte[] email, long id) {
+        if ((indexedSlots + 1) * 2 > indexCapacity) {
+            growIndex();
+        }
+        var table = index;
+        var mask = indexCapacity - 1;
+        var hash = hash(email);
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            var position = INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+            var slotHash = table.getInt(position);
+            if (slotHash == 0) {
+                table.putInt(position + 4, (int) id);
+                table.putInt(position, hash);
+                indexedSlots++;
+                break;
+            }
+            // the latest user with an email wins, as with the in-memory repository
+            if (slotHash == hash && hasUsername(table.getInt(position + 4), email)) {
+                table.putInt(position + 4, (int) id);
+                break;
+            }
+        }
+        indexedCount = id;
+    }
+
+    /**
+     * Forces the slots to disk before the header says they cover
+     * {@link #indexedCount} users, so the header never runs ahead of them.
+     */
+    private void checkpoint() {
+        index.force();
+        index.putLong(INDEX_USED_SLOTS, indexedSlots).putLong(INDEX_INDEXED_COUNT, indexedCount);
+        index.force(0, INDEX_HEADER_SIZE);
+    }
+
+    private void openIndex() throws IOException {
+        var indexFile = directory.resolve(INDEX_FILE);
+        index = mapIndex(indexFile);
+        if (index == null) {
+            index = createIndex(indexFile, INITIAL_INDEX_CAPACITY);
+        }
+        indexCapacity = index.getInt(INDEX_CAPACITY);
+        indexedCount = index.getLong(INDEX_INDEXED_COUNT);
+
+        if (indexedCount < count) {
+            // users saved after the last checkpoint, their slots may or may not be on disk
+            indexedSlots = countUsedSlots();
+            for (long id = indexedCount + 1; id <= count; id++) {
+                var chunk = chunks[(int) (id >>> CHUNK_BITS)];
+                var offset = offsetOf(id) + USERNAME;
+                var email = new byte[chunk.getShort(offset)];
+                chunk.get(offset + 2, email);
+                index(email, id);
+            }
+        } else {
+            indexedSlots = index.getLong(INDEX_USED_SLOTS);
+        }
+        checkpoint();
+    }
+
+    /**
+     * @return the mapped index, or null if there is none or it was never
+     * written to
+     */
+    private static MappedByteBuffer mapIndex(Path indexFile) throws IOException {
+        if (!Files.exists(indexFile)) {
+            return null;
+        }
+        try (var channel = FileChannel.open(indexFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < INDEX_HEADER_SIZE) {
+                return null;
+            }
+            var table = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            if (table.getInt(0) == 0) {
+                return null;
+            }
+            checkHeader(table, INDEX_MAGIC, INDEX_FILE);
+            return table;
+        }
+    }
+
+    private long countUsedSlots() {
+        long used = 0;
+        for (int slot = 0; slot < indexCapacity; slot++) {
+            if (index.getInt(INDEX_HEADER_SIZE + slot * SLOT_SIZE) != 0) {
+                used++;
+            }
+        }
+        return used;
+    }
+
+    private void growIndex() {
+        var indexFile = directory.resolve(INDEX_FILE);
+        var temporaryFile = directory.resolve(INDEX_FILE + ".tmp");
+        var oldTable = index;
+        var oldCapacity = indexCapacity;
+        var newCapacity = oldCapacity * 2;
+        try {
+            var table = createIndex(temporaryFile, newCapacity);
+            var mask = newCapacity - 1;
+            for (int oldSlot = 0; oldSlot < oldCapacity; oldSlot++) {
+                var oldPosition = INDEX_HEADER_SIZE + oldSlot * SLOT_SIZE;
+                var hash = oldTable.getInt(oldPosition);
+                if (hash == 0) {
+                    continue;
+                }
+                var slot = hash & mask;
+                while (table.getInt(INDEX_HEADER_SIZE + slot * SLOT_SIZE) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table.putInt(INDEX_HEADER_SIZE + slot * SLOT_SIZE + 4, oldTable.getInt(oldPosition + 4));
+                table.putInt(INDEX_HEADER_SIZE + slot * SLOT_SIZE, hash);
+            }
+            table.putLong(INDEX_USED_SLOTS, indexedSlots);
+            table.putLong(INDEX_INDEXED_COUNT, indexedCount);
+            table.force();
+            Files.move(temporaryFile, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            index = table;
+            indexCapacity = newCapacity;
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to grow " + INDEX_FILE, e);
+        }
+    }
+
+    private static MappedByteBuffer createIndex(Path file, int capacity) throws IOException {
+        try (var channel = FileChannel.open(
+                file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        )) {
+            var table = channel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER_SIZE + (long) capacity * SLOT_SIZE);
+            table.putInt(0, INDEX_MAGIC).putInt(4, FORMAT_VERSION).putInt(INDEX_CAPACITY, capacity);
+            return table;
+        }
+    }
+
+    private static void checkHeader(MappedByteBuffer header, int magic, String file) {
+        if (header.getInt(0) != magic) {
+            throw new IllegalStateException("not a users file: " + file);
+        }
+        var version = header.getInt(4);
+        if (version != FORMAT_VERSION) {
+            throw new IllegalStateException("unsupported version " + version + " of " + file);
+        }
+    }
+
+    private static int hash(byte[] email) {
+        var hash = Arrays.hashCode(email);
+        hash ^= hash >>> 16;
+        // 0 marks an empty slot
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static byte[] bytes(String value, int maxLength, String name) {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > maxLength) {
+            throw new IllegalArgumentException(name + " longer than " + maxLength + " bytes");
+        }
+        return bytes;
+    }
+
+    private static void putString(MappedByteBuffer chunk, int offset, byte[] value) {
+        chunk.putShort(offset, (short) value.length);
+        chunk.put(offset + 2, value);
+    }
+
+    private static String getString(MappedByteBuffer chunk, int offset) {
+        var value = new byte[chunk.getShort(offset)];
+        chunk.get(offset + 2, value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+}
@@ -3,26 +3,39 @@ package com.icecoldcode.core.authentication.internal.infrastructure;
 import com.icecoldcode.core.Entity;
 import com.icecoldcode.core.authentication.internal.AuthUser;
 import com.icecoldcode.core.authentication.internal.UserRepository;
-import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
-@Repository
 class UserRepositoryInMemory implements UserRepository {
 
-    public static long nextId = 1;
+    private final AtomicLong nextId = new AtomicLong(1);
 
     // Naturally, this would be a DB
-    public Map<Long, Entity<AuthUser>> byId = new HashMap<>();
-    public Map<String, Entity<AuthUser>> byEmail = new HashMap<>();
+    private final Map<Long, Entity<AuthUser>> byId = new ConcurrentHashMap<>();
+    private final Map<String, Entity<AuthUser>> byEmail = new ConcurrentHashMap<>();
 
     @Override
     public Optional<Entity<AuthUser>> getById(long id) {
         return Optional.ofNullable(byId.get(id));
     }
 
+    @Override
+    public Map<Long, Entity<AuthUser>> getByIds(Collection<Long> ids) {
+        Map<Long, Entity<AuthUser>> users = new HashMap<>();
+        for (Long id : ids) {
+            var user = byId.get(id);
+            if (user != null) {
+                users.put(id, user);
+            }
+        }
+        return users;
+    }
+
     @Override
     public Optional<Entity<AuthUser>> getByEmail(String email) {
         return Optional.ofNullable(byEmail.get(email));
@@ -30,9 +43,12 @@ class UserRepositoryInMemory implements UserRepository {
 
     @Override
     public long save(AuthUser authUser) {
-        byId.put(nextId, new Entity<>(nextId, authUser));
-        byEmail.put(authUser.getUsername(), new Entity<>(nextId, authUser));
-        return nextId++;
+        var id = nextId.getAndIncrement();
+        var entity = new Entity<>(id, authUser);
+        // byId first, a user found by email can always be found by id
+        byId.put(id, entity);
+        byEmail.put(authUser.getUsername(), entity);
+        return id;
     }
 
 }
@@ -15,7 +15,7 @@ const greetingDialogController = setupGreetingDialog();
 document.addEventListener("authEvent", function (event) {
   const authUser = event.detail.authUser;
 
-  greetingListController.loadAndRenderGreetings(authUser);
+  greetingListController.followGreetings(authUser);
   greetingDialogController.setButtonHidden(
     authUser === null
   );
@@ -145,6 +145,7 @@ function setupGreetings() {
   const createGreetingLi = (authUser) => (greeting) => {
     const li = document.createElement("li");
     li.classList.add("greeting");
+    li.dataset.id = greeting.id;
 
     const topWrapper = document.createElement("div");
     topWrapper.classList.add("topWrapper");
@@ -186,25 +187,90 @@ function setupGreetings() {
     return li;
   };
 
+  let events = null;
+  // events that arrive while the list is loading, applied once it is rendered
+  let pendingEvents = null;
+
+  const findGreetingLi = (id) =>
+    list.querySelector(`li[data-id="${id}"]`);
+
+  const appendGreeting = (authUser, greeting) => {
+    if (!findGreetingLi(greeting.id)) {
+      list.append(createGreetingLi(authUser)(greeting));
+    }
+  };
+
+  const applyEvent = (authUser, name, data) => {
+    if (name === "created") {
+      appendGreeting(authUser, data);
+    } else if (name === "deleted") {
+      data.forEach((id) => findGreetingLi(id)?.remove());
+    } else if (name === "reset") {
+      loadAndRenderGreetings(authUser);
+    }
+  };
+
   const loadAndRenderGreetings = (authUser) => {
+    pendingEvents = [];
     greetingsApi.list().then((greetings) => {
       list.innerHTML = "";
       greetings
         .map(createGreetingLi(authUser))
         .forEach((li) => list.append(li));
+
+      const missed = pendingEvents;
+      pendingEvents = null;
+      missed.forEach(({ name, data }) => applyEvent(authUser, name, data));
     });
   };
 
+  // Signed in, the list is read once and then kept up to date by the
+  // server's events. The browser reconnects on its own, resuming after
+  // the last event it got.
+  const followGreetings = (authUser) => {
+    if (events) {
+      events.close();
+      events = null;
+    }
+    if (!authUser) {
+      loadAndRenderGreetings(authUser);
+      return;
+    }
+
+    events = new EventSource("/api/v1/greetings/stream");
+    // the list is read once subscribed, so no change falls in between;
+    // if the stream can not be opened the list is still shown
+    let loaded = false;
+    const loadOnce = () => {
+      if (!loaded) {
+        loaded = true;
+        loadAndRenderGreetings(authUser);
+      }
+    };
+    events.addEventListener("open", loadOnce);
+    events.addEventListener("error", loadOnce);
+    ["created", "deleted", "reset"].forEach((name) =>
+      events.addEventListener(name, (event) => {
+        const data = event.data ? JSON.parse(event.data) : null;
+        if (pendingEvents) {
+          pendingEvents.push({ name, data });
+        } else {
+          applyEvent(authUser, name, data);
+        }
+      })
+    );
+  };
+
   const addGreeting = (authUser, partialGreeting) => {
     const greeting = {
       ...partialGreeting,
       author: authUser.username,
       company: authUser.companyId,
     };
-    list.append(createGreetingLi(authUser)(greeting));
+    appendGreeting(authUser, greeting);
   };
 
-  return { loadAndRenderGreetings, addGreeting };
+  return { followGreetings, addGreeting };
 };
 
 function setupGreetingDialog() {
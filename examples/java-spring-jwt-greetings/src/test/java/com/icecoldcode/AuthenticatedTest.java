@@ -6,6 +6,7 @@ import com.icecoldcode.api.greeting.CreateGreetingDto;
 import com.icecoldcode.api.greeting.GreetingDto;
 import com.icecoldcode.core.authentication.CreateAuthUserDto;
 import com.icecoldcode.core.authentication.LoginDto;
+import com.icecoldcode.core.authentication.internal.UserRepository;
 import jakarta.servlet.http.Cookie;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -13,14 +14,26 @@ import org.junit.jupiter.api.TestInstance;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
 import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -31,6 +44,9 @@ public class AuthenticatedTest {
     @Autowired
     private MockMvc mvc;
 
+    @Autowired
+    private UserRepository userRepository;
+
     private Cookie[] user1CompanyACookies;
     private Cookie[] admin1CompanyACookies;
     private Cookie[] user2CompanyACookies;
@@ -69,6 +85,267 @@ public class AuthenticatedTest {
         );
     }
 
+    @Test
+    public void addGreetingsInBatch() throws Exception {
+        var res = mvc.perform(MockMvcRequestBuilders
+                        .post("/api/v1/greetings/batch")
+                        .content(new ObjectMapper().writeValueAsBytes(List.of(
+                                new CreateGreetingDto("ett"),
+                                new CreateGreetingDto("två")
+                        )))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .cookie(user1CompanyACookies)
+                )
+                .andExpect(status().isOk())
+                .andReturn();
+
+        List<Long> ids = new ObjectMapper().readValue(res.getResponse().getContentAsByteArray(), new TypeReference<>() {
+        });
+        assertEquals(2, ids.size());
+        assertEquals(ids.get(0) + 1, ids.get(1), "Batch ids are consecutive");
+
+        var messages = getGreetings().stream()
+                .filter(greetingDto -> ids.contains(greetingDto.id()))
+                .map(GreetingDto::message)
+                .toList();
+        assertEquals(List.of("ett", "två"), messages);
+    }
+
+    @Test
+    public void importGreetings() throws Exception {
+        var lines = "{\"message\":\"import 1\"}\n{\"message\":\"import 2\"}\n";
+        mvc.perform(MockMvcRequestBuilders
+                        .post("/api/v1/greetings")
+                        .content(lines.getBytes(StandardCharsets.UTF_8))
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .cookie(user1CompanyACookies)
+                )
+                .andExpect(status().isOk())
+                .andExpect(content().string("2"));
+
+        mvc.perform(MockMvcRequestBuilders
+                        .post("/api/v1/greetings")
+                        .content("{\"message\":\"import 3\"}\nnot json\n".getBytes(StandardCharsets.UTF_8))
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .cookie(user1CompanyACookies)
+                )
+                .andExpect(status().isBadRequest());
+
+        var messages = getGreetings().stream().map(GreetingDto::message).toList();
+        assertTrue(messages.containsAll(List.of("import 1", "import 2")));
+        assertFalse(messages.contains("import 3"), "Chunk with a malformed line is not created");
+    }
+
+    @Test
+    public void rejectBatchWithGreetingWithoutMessage() throws Exception {
+        mvc.perform(MockMvcRequestBuilders
+                        .post("/api/v1/greetings/batch")
+                        .content("[{\"message\":\"batch 1\"},null]")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .cookie(user1CompanyACookies)
+                )
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason("greeting 2 of the batch has no message, none imported"));
+
+        mvc.perform(MockMvcRequestBuilders
+                        .post("/api/v1/greetings/batch")
+                        .content("[{\"message\":\"batch 2\"},{}]")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .cookie(user1CompanyACookies)
+                )
+                .andExpect(status().isBadRequest());
+
+        var messages = getGreetings().stream().map(GreetingDto::message).toList();
+        assertFalse(messages.contains("batch 1"));
+        assertFalse(messages.contains("batch 2"));
+    }
+
+    @Test
+    public void rejectImportLineWithoutMessage() throws Exception {
+        var lines = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            lines.append("{\"message\":\"chunk\"}\n");
+        }
+        lines.append("{\"message\":\"after chunk\"}\nnull\n");
+
+        mvc.perform(MockMvcRequestBuilders
+                        .post("/api/v1/greetings")
+                        .content(lines.toString().getBytes(StandardCharsets.UTF_8))
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .cookie(user2CompanyACookies)
+                )
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason("malformed greeting on line 1002, 1000 imported before it"));
+
+        mvc.perform(MockMvcRequestBuilders
+                        .post("/api/v1/greetings")
+                        .content("{\"message\":\"missing 1\"}\n{\"text\":\"missing 2\"}\n".getBytes(StandardCharsets.UTF_8))
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .cookie(user2CompanyACookies)
+                )
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason("malformed greeting on line 2, 0 imported before it"));
+
+        var messages = getGreetings().stream().map(GreetingDto::message).toList();
+        assertTrue(messages.contains("chunk"));
+        assertFalse(messages.contains("after chunk"), "Chunk with a line without greeting is not created");
+        assertFalse(messages.contains("missing 1"));
+    }
+
+    @Test
+    public void logoutRevokesToken() throws Exception {
+        var cookies = login("_test1_companyA", "test");
+        createGreeting(cookies);
+
+        mvc.perform(MockMvcRequestBuilders
+                        .delete("/auth")
+                        .cookie(cookies)
+                )
+                .andExpect(status().isOk());
+
+        mvc.perform(MockMvcRequestBuilders
+                        .post("/api/v1/greetings")
+                        .content(new ObjectMapper().writeValueAsBytes(new CreateGreetingDto("hej")))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .cookie(cookies)
+                )
+                .andExpect(status().isForbidden());
+        createGreeting(user1CompanyACookies);
+    }
+
+    @Test
+    public void revokeAllSessionsOfUser() throws Exception {
+        register("_locked_companyA", "test", "_test_companyA", Set.of());
+        var cookies = login("_locked_companyA", "test");
+        var id = userRepository.getByEmail("_locked_companyA").orElseThrow().id();
+        // sessions issued in the second of the revocation are kept
+        Thread.sleep(1000 - System.currentTimeMillis() % 1000);
+
+        mvc.perform(MockMvcRequestBuilders
+                        .delete("/auth/users/" + id + "/sessions")
+                        .cookie(user1CompanyBCookies)
+                )
+                .andExpect(status().isNotFound());
+        mvc.perform(MockMvcRequestBuilders
+                        .delete("/auth/users/" + id + "/sessions")
+                        .cookie(admin1CompanyACookies)
+                )
+                .andExpect(status().isNoContent());
+
+        mvc.perform(MockMvcRequestBuilders
+                        .post("/api/v1/greetings")
+                        .content(new ObjectMapper().writeValueAsBytes(new CreateGreetingDto("hej")))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .cookie(cookies)
+                )
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void listGreetingsInPages() throws Exception {
+        var firstId = createGreeting(user1CompanyACookies);
+        var secondId = createGreeting(user1CompanyACookies);
+
+        var firstPage = list(MockMvcRequestBuilders
+                .get("/api/v1/greetings?limit=1&after=" + cursorBefore(firstId)));
+
+        var nextPage = firstPage.getHeader(HttpHeaders.LINK);
+        assertNotNull(nextPage, "Full page links to the next page");
+
+        var secondPage = list(MockMvcRequestBuilders
+                .get(URI.create(nextPage.substring(1, nextPage.indexOf('>')))));
+
+        assertEquals(firstId, readGreetings(firstPage.getContentAsByteArray()).get(0).id());
+        assertEquals(secondId, readGreetings(secondPage.getContentAsByteArray()).get(0).id());
+    }
+
+    @Test
+    public void listGreetingsOfOwnCompany() throws Exception {
+        var companyAId = createGreeting(user1CompanyACookies);
+        var companyBId = createGreeting(user1CompanyBCookies);
+
+        var res = list(MockMvcRequestBuilders
+                .get("/api/v1/greetings?company=mine")
+                .cookie(user2CompanyACookies));
+
+        var ids = readGreetings(res.getContentAsByteArray()).stream()
+                .map(GreetingDto::id)
+                .toList();
+        assertTrue(ids.contains(companyAId), "Greeting of own company is listed");
+        assertFalse(ids.contains(companyBId), "Greeting of other company is not listed");
+    }
+
+    @Test
+    public void streamGreetingsOfOwnCompany() throws Exception {
+        var companyAId = createGreeting(user1CompanyACookies);
+        var companyBId = createGreeting(user1CompanyBCookies);
+
+        var res = list(MockMvcRequestBuilders
+                .get("/api/v1/greetings?stream=true&company=mine")
+                .cookie(user2CompanyACookies));
+
+        var ids = readGreetings(res.getContentAsByteArray()).stream()
+                .map(GreetingDto::id)
+                .toList();
+        assertTrue(ids.contains(companyAId), "Greeting of own company is streamed");
+        assertFalse(ids.contains(companyBId), "Greeting of other company is not streamed");
+        assertNotNull(res.getHeader(HttpHeaders.ETAG), "Streamed list carries the list ETag");
+    }
+
+    @Test
+    public void rejectStreamOfOtherCompany() throws Exception {
+        mvc.perform(MockMvcRequestBuilders
+                        .get("/api/v1/greetings?stream=true&company=other")
+                        .cookie(user2CompanyACookies)
+                )
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void listOwnGreetings() throws Exception {
+        var ownId = createGreeting(user2CompanyACookies);
+        var otherId = createGreeting(user1CompanyACookies);
+
+        var res = list(MockMvcRequestBuilders
+                .get("/api/v1/greetings?author=me")
+                .cookie(user2CompanyACookies));
+
+        var ids = readGreetings(res.getContentAsByteArray()).stream()
+                .map(GreetingDto::id)
+                .toList();
+        assertTrue(ids.contains(ownId), "Own greeting is listed");
+        assertFalse(ids.contains(otherId), "Greeting of other author is not listed");
+    }
+
+    @Test
+    public void deleteAllGreetingsOfAuthor() throws Exception {
+        register("_offboarded_companyA", "test", "_test_companyA", Set.of());
+        var offboardedCookies = login("_offboarded_companyA", "test");
+        var firstId = createGreeting(offboardedCookies);
+        var secondId = createGreeting(offboardedCookies);
+        var authorId = userRepository.getByEmail("_offboarded_companyA").orElseThrow().id();
+
+        var ownGreetings = list(MockMvcRequestBuilders
+                .get("/api/v1/greetings?author=me")
+                .cookie(offboardedCookies)
+        ).getContentAsByteArray();
+        assertEquals(2, readGreetings(ownGreetings).size());
+
+        mvc.perform(MockMvcRequestBuilders
+                .delete("/api/v1/greetings?author=" + authorId)
+                .cookie(user2CompanyACookies)
+        ).andExpect(status().isNotFound());
+
+        mvc.perform(MockMvcRequestBuilders
+                .delete("/api/v1/greetings?author=" + authorId)
+                .cookie(admin1CompanyACookies)
+        ).andExpect(status().isOk());
+
+        var remaining = getGreetings().stream().map(GreetingDto::id).toList();
+        assertFalse(remaining.contains(firstId));
+        assertFalse(remaining.contains(secondId));
+    }
+
     @Test
     public void deleteGreetingForOtherUserInSameCompanyAsAdmin() throws Exception {
         var idOfGreeting = createGreeting(user1CompanyACookies);
@@ -110,6 +387,24 @@ public class AuthenticatedTest {
         ).andExpect(status().isNotFound());
     }
 
+    @Test
+    public void getMetricsAsAdmin() throws Exception {
+        mvc.perform(MockMvcRequestBuilders
+                .get("/actuator/metrics/jwt.verify")
+                .accept(MediaType.APPLICATION_JSON)
+                .cookie(admin1CompanyACookies)
+        ).andExpect(status().isOk());
+    }
+
+    @Test
+    public void getMetricsAsUser() throws Exception {
+        mvc.perform(MockMvcRequestBuilders
+                .get("/actuator/metrics/jwt.verify")
+                .accept(MediaType.APPLICATION_JSON)
+                .cookie(user1CompanyACookies)
+        ).andExpect(status().isForbidden());
+    }
+
     private Cookie[] login(String username, String password) throws Exception {
         return mvc.perform(MockMvcRequestBuilders.post("/auth")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -155,17 +450,36 @@ public class AuthenticatedTest {
     }
 
     private List<GreetingDto> getGreetings() throws Exception {
-        var res = mvc.perform(MockMvcRequestBuilders
-                .get("/api/v1/greetings")
-                .accept(MediaType.APPLICATION_JSON)
-        ).andReturn();
+        return readGreetings(list(MockMvcRequestBuilders.get("/api/v1/greetings")).getContentAsByteArray());
+    }
 
+    /**
+     * Lists greetings as JSON. The list is written to the response once the
+     * request has gone async, so the response is read after dispatching it.
+     */
+    private MockHttpServletResponse list(MockHttpServletRequestBuilder listRequest) throws Exception {
+        var started = mvc.perform(listRequest.accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+    }
+
+    private List<GreetingDto> readGreetings(byte[] content) throws Exception {
         ObjectMapper objectMapper = new ObjectMapper();
         return objectMapper.readValue(
-                res.getResponse().getContentAsByteArray(),
+                content,
                 new TypeReference<>() {
                 }
         );
     }
 
+    private static String cursorBefore(long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                ("g:" + (id - 1)).getBytes(StandardCharsets.US_ASCII)
+        );
+    }
+
 }
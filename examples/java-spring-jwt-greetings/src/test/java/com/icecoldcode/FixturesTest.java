@@ -0,0 +1,51 @@
+package com.icecoldcode;
+
+import com.icecoldcode.api.greeting.GreetingsRepository;
+import com.icecoldcode.core.authentication.internal.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "fixtures.companies=3",
+        "fixtures.users=50",
+        "fixtures.greetings=2500",
+        "fixtures.threads=4"
+})
+@ActiveProfiles({"dev", "fixtures"})
+public class FixturesTest {
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    GreetingsRepository greetingsRepository;
+
+    @Test
+    public void loadsUsersIntoTheirCompanies() {
+        for (int n = 0; n < 50; n++) {
+            var user = userRepository.getByEmail("fixture-" + n).orElseThrow();
+            assertEquals("fixture-company-" + (n % 3), user.value().getCompanyId());
+        }
+        assertTrue(userRepository.getByEmail("fixture-50").isEmpty());
+    }
+
+    @Test
+    public void loadsGreetingsByUsersOfTheirCompany() {
+        var loaded = 0;
+        for (int company = 0; company < 3; company++) {
+            for (var greeting : greetingsRepository.listByCompany("fixture-company-" + company, 0, 10_000)) {
+                var author = userRepository.getById(greeting.value().authorId()).orElseThrow();
+                assertEquals(greeting.value().companyId(), author.value().getCompanyId());
+                assertTrue(author.value().getUsername().startsWith("fixture-"));
+                loaded++;
+            }
+        }
+        assertEquals(2500, loaded);
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.icecoldcode;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A subscriber to the event stream gets the creation and then the deletion
+ * of a greeting written through the api.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class GreetingEventsTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    public void subscriberGetsCreatedAndDeletedGreetings() throws Exception {
+        send(post("/auth/users", """
+                {"username":"_events1","password":"test","companyId":"_events","roles":[]}"""));
+        var login = send(post("/auth", """
+                {"username":"_events1","password":"test"}"""));
+        var cookie = login.headers().firstValue("Set-Cookie").orElseThrow().split(";")[0];
+
+        var subscribers = meterRegistry.get("greetings.events.subscribers").gauge();
+        var subscribedBefore = subscribers.value();
+        var stream = client.send(
+                HttpRequest.newBuilder(uri("/api/v1/greetings/stream")).header("Cookie", cookie).build(),
+                HttpResponse.BodyHandlers.ofLines()
+        );
+        assertEquals(200, stream.statusCode());
+        while (subscribers.value() <= subscribedBefore) {
+            Thread.sleep(10);
+        }
+
+        var id = send(post("/api/v1/greetings", """
+                {"message":"hej"}""").header("Cookie", cookie)).body();
+        var deleted = send(HttpRequest.newBuilder(uri("/api/v1/greetings/" + id))
+                .header("Cookie", cookie)
+                .DELETE());
+        assertEquals(204, deleted.statusCode());
+
+        List<String> events = new ArrayList<>();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor(); var lines = stream.body()) {
+            executor.submit(() -> {
+                var name = "";
+                for (var line : (Iterable<String>) lines::iterator) {
+                    if (line.startsWith("event:")) {
+                        name = line.substring("event:".length());
+                    } else if (line.startsWith("data:")) {
+                        var data = line.substring("data:".length());
+                        if (name.equals("created") && data.contains("\"id\":" + id + ",")) {
+                            events.add("created");
+                        } else if (name.equals("deleted") && data.equals("[" + id + "]")) {
+                            events.add("deleted");
+                            return null;
+                        }
+                    }
+                }
+                return null;
+            }).get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(List.of("created", "deleted"), events);
+    }
+
+    private HttpRequest.Builder post(String path, String json) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+}
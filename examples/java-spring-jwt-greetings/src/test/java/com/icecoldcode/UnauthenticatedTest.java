@@ -4,14 +4,19 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.icecoldcode.api.greeting.CreateGreetingDto;
 import com.icecoldcode.api.greeting.Greeting;
 import com.icecoldcode.api.greeting.GreetingsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
@@ -25,6 +30,9 @@ public class UnauthenticatedTest {
     @Autowired
     GreetingsRepository greetingsRepository;
 
+    @Autowired
+    MeterRegistry meterRegistry;
+
     @Test
     public void getIndex() throws Exception {
         mvc.perform(MockMvcRequestBuilders.get("/"))
@@ -32,6 +40,26 @@ public class UnauthenticatedTest {
                 .andExpect(view().name("index.html"));
     }
 
+    @Test
+    public void getHealth() throws Exception {
+        mvc.perform(MockMvcRequestBuilders
+                        .get("/actuator/health")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void getMetrics() throws Exception {
+        mvc.perform(MockMvcRequestBuilders
+                        .get("/actuator/metrics")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isForbidden());
+        mvc.perform(MockMvcRequestBuilders
+                        .get("/actuator/metrics/jwt.verify")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     public void listGreetings() throws Exception {
         mvc.perform(MockMvcRequestBuilders
@@ -40,6 +68,48 @@ public class UnauthenticatedTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void listGreetingsRecordsAssembling() throws Exception {
+        greetingsRepository.create(new Greeting(1, "test", "measured"));
+        var assembled = meterRegistry.get("greetings.assemble").timer().count();
+        var sizes = meterRegistry.get("greetings.list.size").summary().count();
+
+        var started = mvc.perform(MockMvcRequestBuilders
+                        .get("/api/v1/greetings")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+
+        assertEquals(assembled + 1, meterRegistry.get("greetings.assemble").timer().count());
+        assertEquals(sizes + 1, meterRegistry.get("greetings.list.size").summary().count());
+    }
+
+    @Test
+    public void listGreetingsNotModified() throws Exception {
+        var eTag = mvc.perform(MockMvcRequestBuilders
+                        .get("/api/v1/greetings")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(MockMvcRequestBuilders
+                        .get("/api/v1/greetings")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+
+        greetingsRepository.create(new Greeting(1, "test", "changed"));
+
+        mvc.perform(MockMvcRequestBuilders
+                        .get("/api/v1/greetings")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+
     @Test
     public void addGreeting() throws Exception {
         mvc.perform(MockMvcRequestBuilders
@@ -51,6 +121,15 @@ public class UnauthenticatedTest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    public void streamGreetingEvents() throws Exception {
+        mvc.perform(MockMvcRequestBuilders
+                        .get("/api/v1/greetings/stream")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                )
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     public void removeGreetingNonExisting() throws Exception {
         mvc.perform(MockMvcRequestBuilders
@@ -62,7 +141,7 @@ public class UnauthenticatedTest {
 
     @Test
     public void removeGreetingExisting() throws Exception {
-        long id = greetingsRepository.create(new Greeting(1, "hello"));
+        long id = greetingsRepository.create(new Greeting(1, "test", "hello"));
         mvc.perform(MockMvcRequestBuilders
                         .delete("/api/v1/greetings/" + id)
                         .accept(MediaType.APPLICATION_JSON)
@@ -0,0 +1,95 @@
+package com.icecoldcode;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.icecoldcode.api.greeting.GreetingDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Requests served on virtual threads must each see their own principal.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.threads.virtual.enabled=true"
+)
+public class VirtualThreadsTest {
+
+    private static final int GREETINGS_PER_USER = 50;
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    public void concurrentRequestsKeepTheirOwnPrincipal() throws Exception {
+        var usernames = List.of("_virtual1", "_virtual2", "_virtual3");
+        Map<String, String> cookies = new HashMap<>();
+        for (String username : usernames) {
+            send(post("/auth/users", """
+                    {"username":"%s","password":"test","companyId":"_virtual","roles":[]}"""
+                    .formatted(username)));
+            var login = send(post("/auth", """
+                    {"username":"%s","password":"test"}""".formatted(username)));
+            cookies.put(username, login.headers().firstValue("Set-Cookie").orElseThrow().split(";")[0]);
+        }
+
+        Map<Long, String> authorById = new HashMap<>();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Map<Future<HttpResponse<String>>, String> created = new HashMap<>();
+            for (int i = 0; i < GREETINGS_PER_USER; i++) {
+                for (String username : usernames) {
+                    created.put(executor.submit(() -> send(post("/api/v1/greetings", """
+                            {"message":"hej"}""").header("Cookie", cookies.get(username)))), username);
+                }
+            }
+            for (var greeting : created.entrySet()) {
+                authorById.put(Long.parseLong(greeting.getKey().get().body()), greeting.getValue());
+            }
+        }
+
+        List<GreetingDto> greetings = new ObjectMapper().readValue(
+                send(HttpRequest.newBuilder(uri("/api/v1/greetings"))).body(),
+                new TypeReference<>() {
+                }
+        );
+        var checked = new ArrayList<Long>();
+        for (GreetingDto greeting : greetings) {
+            if (authorById.containsKey(greeting.id())) {
+                assertEquals(authorById.get(greeting.id()), greeting.author());
+                checked.add(greeting.id());
+            }
+        }
+        assertEquals(usernames.size() * GREETINGS_PER_USER, checked.size());
+    }
+
+    private HttpRequest.Builder post(String path, String json) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.icecoldcode.api.greeting;
+
+import com.icecoldcode.core.Entity;
+import com.icecoldcode.core.authentication.internal.AuthUser;
+import com.icecoldcode.core.authentication.internal.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class GreetingDtoAssemblerSpec {
+
+    private final UserRepository userRepository = Mockito.mock(UserRepository.class);
+    private final GreetingDtoAssembler assembler = new GreetingDtoAssembler(
+            userRepository,
+            new SimpleMeterRegistry()
+    );
+
+    @Test
+    void fetchesAuthorsOnceForWholeList() {
+        when(userRepository.getByIds(Set.of(1L, 2L))).thenReturn(Map.of(
+                1L, createUser(1, "anna"),
+                2L, createUser(2, "bert")
+        ));
+
+        var greetingDtos = assembler.toDtos(List.of(
+                createGreeting(10, 1),
+                createGreeting(11, 2),
+                createGreeting(12, 1)
+        ));
+
+        assertEquals(List.of("anna", "bert", "anna"),
+                greetingDtos.stream().map(GreetingDto::author).toList());
+        verify(userRepository, times(1)).getByIds(any());
+        verify(userRepository, never()).getById(anyLong());
+    }
+
+    @Test
+    void leavesOutGreetingsWithoutAuthor() {
+        when(userRepository.getByIds(Set.of(1L, 2L))).thenReturn(Map.of(
+                1L, createUser(1, "anna")
+        ));
+
+        var greetingDtos = assembler.toDtos(List.of(
+                createGreeting(10, 1),
+                createGreeting(11, 2)
+        ));
+
+        assertEquals(1, greetingDtos.size());
+        assertEquals(10, greetingDtos.get(0).id());
+    }
+
+    private static Entity<AuthUser> createUser(long id, String username) {
+        return new Entity<>(id, new AuthUser(username, "", "companyA", Set.of()));
+    }
+
+    private static Entity<Greeting> createGreeting(long id, long authorId) {
+        return new Entity<>(id, new Greeting(authorId, "companyA", "hej"));
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.icecoldcode.api.greeting;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GreetingEventsSpec {
+
+    private final GreetingEvents greetingEvents = new GreetingEvents(4, 2, new SimpleMeterRegistry());
+
+    @Test
+    void sendsEventsPublishedAfterSubscribing() throws InterruptedException {
+        greetingEvents.deleted(List.of(1L));
+        try (var subscription = greetingEvents.subscribe(null)) {
+            created(2);
+
+            var event = next(subscription);
+            assertEquals(GreetingEvents.CREATED, event.name());
+            assertEquals(greeting(2), event.data());
+            assertNull(subscription.poll(0, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    void resumesAfterLastEventId() throws InterruptedException {
+        String lastEventId;
+        try (var subscription = greetingEvents.subscribe(null)) {
+            created(1);
+            lastEventId = next(subscription).id();
+        }
+        created(2);
+        greetingEvents.deleted(List.of(1L));
+
+        try (var subscription = greetingEvents.subscribe(lastEventId)) {
+            assertEquals(greeting(2), next(subscription).data());
+            assertEquals(List.of(1L), next(subscription).data());
+        }
+    }
+
+    @Test
+    void resetsWhenMissedEventsAreGone() throws InterruptedException {
+        String lastEventId;
+        try (var subscription = greetingEvents.subscribe(null)) {
+            created(1);
+            lastEventId = next(subscription).id();
+        }
+        for (int i = 2; i <= 6; i++) {
+            created(i);
+        }
+
+        try (var subscription = greetingEvents.subscribe(lastEventId)) {
+            var reset = next(subscription);
+            assertEquals(GreetingEvents.RESET, reset.name());
+
+            created(7);
+            assertEquals(greeting(7), next(subscription).data());
+        }
+        try (var subscription = greetingEvents.subscribe("unknown-1")) {
+            assertEquals(GreetingEvents.RESET, next(subscription).name());
+        }
+    }
+
+    @Test
+    void evictsSubscriberThatFallsBehind() throws InterruptedException {
+        try (var subscription = greetingEvents.subscribe(null)) {
+            for (int i = 1; i <= 3; i++) {
+                created(i);
+            }
+
+            assertEquals(greeting(1), next(subscription).data());
+            assertEquals(greeting(2), next(subscription).data());
+            assertThrows(GreetingEvents.EvictedException.class, () -> subscription.poll(0, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    void leavesOutCreationsOfGreetingsAlreadyDeleted() throws InterruptedException {
+        try (var subscription = greetingEvents.subscribe(null)) {
+            greetingEvents.deleted(List.of(1L));
+            greetingEvents.created(List.of(greeting(1), greeting(2)), id -> id != 1);
+
+            assertEquals(List.of(1L), next(subscription).data());
+            assertEquals(greeting(2), next(subscription).data());
+            assertNull(subscription.poll(0, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private void created(long id) {
+        greetingEvents.created(List.of(greeting(id)), existing -> true);
+    }
+
+    private static GreetingEvents.Event next(GreetingEvents.Subscription subscription) throws InterruptedException {
+        var event = subscription.poll(0, TimeUnit.MILLISECONDS);
+        assertNotNull(event);
+        return event;
+    }
+
+    private static GreetingDto greeting(long id) {
+        return new GreetingDto(id, "anna", "companyA", "hej");
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.icecoldcode.api.greeting;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.icecoldcode.core.Entity;
+import com.icecoldcode.core.authentication.internal.AuthUser;
+import com.icecoldcode.core.authentication.internal.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class GreetingFragmentsSpec {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final UserRepository userRepository = Mockito.mock(UserRepository.class);
+    private final GreetingDtoAssembler assembler = new GreetingDtoAssembler(userRepository, new SimpleMeterRegistry());
+    private final GreetingFragments fragments = new GreetingFragments(
+            assembler,
+            objectMapper,
+            1000,
+            new SimpleMeterRegistry()
+    );
+
+    @Test
+    void writesSameJsonAsDtos() throws IOException {
+        when(userRepository.getByIds(any())).thenReturn(Map.of(
+                1L, createUser(1, "anna")
+        ));
+        var greetings = List.of(createGreeting(10, 1), createGreeting(11, 2), createGreeting(12, 1));
+
+        var json = toJsonArray(greetings);
+
+        assertEquals(assembler.toDtos(greetings), read(json));
+        assertEquals(objectMapper.writeValueAsString(assembler.toDtos(greetings)), new String(json));
+    }
+
+    @Test
+    void writesEmptyArray() throws IOException {
+        assertEquals(List.of(), read(toJsonArray(List.of())));
+    }
+
+    @Test
+    void writesAgainWhenAuthorIsRenamed() throws IOException {
+        var greetings = List.of(createGreeting(10, 1));
+        when(userRepository.getByIds(any())).thenReturn(Map.of(1L, createUser(1, "anna")));
+        assertEquals("anna", read(toJsonArray(greetings)).get(0).author());
+
+        when(userRepository.getByIds(any())).thenReturn(Map.of(1L, createUser(1, "annika")));
+
+        assertEquals("annika", read(toJsonArray(greetings)).get(0).author());
+    }
+
+    @Test
+    void writesAgainWhenGreetingDiffers() throws IOException {
+        when(userRepository.getByIds(any())).thenReturn(Map.of(1L, createUser(1, "anna")));
+        assertEquals("hej", read(toJsonArray(List.of(createGreeting(10, 1)))).get(0).message());
+
+        var changed = new Entity<>(10L, new Greeting(1, "companyA", "hallå"));
+
+        assertEquals("hallå", read(toJsonArray(List.of(changed))).get(0).message());
+    }
+
+    private byte[] toJsonArray(List<Entity<Greeting>> greetings) throws IOException {
+        var json = new ByteArrayOutputStream();
+        fragments.writeJsonArray(greetings, json);
+        return json.toByteArray();
+    }
+
+    private List<GreetingDto> read(byte[] json) throws IOException {
+        return objectMapper.readValue(json, new TypeReference<>() {
+        });
+    }
+
+    private static Entity<AuthUser> createUser(long id, String username) {
+        return new Entity<>(id, new AuthUser(username, "", "companyA", Set.of()));
+    }
+
+    private static Entity<Greeting> createGreeting(long id, long authorId) {
+        return new Entity<>(id, new Greeting(authorId, "companyA", "hej"));
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.icecoldcode.api.greeting;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.icecoldcode.core.Entity;
 import com.icecoldcode.core.SecurityContext;
 import com.icecoldcode.core.authentication.internal.Principal;
@@ -24,7 +25,10 @@ class GreetingsControllerSpec {
             securityContext,
             greetingAuthorizationService,
             greetingRepository,
-            Mockito.mock(GreetingDtoAssembler.class)
+            Mockito.mock(GreetingDtoAssembler.class),
+            new ObjectMapper(),
+            Mockito.mock(GreetingEvents.class),
+            Mockito.mock(GreetingFragments.class)
     );
 
     @Test
@@ -50,7 +54,7 @@ class GreetingsControllerSpec {
     @Test
     void createUserWithPrincipalAsAuthor() {
         when(securityContext.requirePrincipal()).thenReturn(new Principal(123,
-                "",
+                "companyA",
                 Set.of(),
                 Instant.ofEpochMilli(0),
                 Instant.ofEpochMilli(0)));
@@ -58,11 +62,11 @@ class GreetingsControllerSpec {
         greetingsController.create(new CreateGreetingDto("hej"));
 
         verify(greetingRepository, times(1)).create(
-                new Greeting(123, "hej")
+                new Greeting(123, "companyA", "hej")
         );
     }
 
     private static Optional<Entity<Greeting>> createGreeting() {
-        return Optional.of(new Entity<>(1, new Greeting(1, "")));
+        return Optional.of(new Entity<>(1, new Greeting(1, "companyA", "")));
     }
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package com.icecoldcode.api.greeting.infrastructure;
+
+import com.icecoldcode.api.greeting.Greeting;
+import com.icecoldcode.core.Entity;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GreetingRepositoryInMemorySpec {
+
+    @Test
+    void listsAsOfWhenListing() {
+        var repository = new GreetingRepositoryInMemory();
+        var first = repository.create(new Greeting(1, "companyA", "hej"));
+        var second = repository.create(new Greeting(2, "companyA", "hallå"));
+
+        var greetings = repository.list();
+        repository.delete(first);
+        repository.create(new Greeting(1, "companyA", "igen"));
+
+        assertEquals(List.of(first, second), greetings.stream().map(Entity::id).toList());
+        assertEquals(2, greetings.size());
+    }
+
+    @Test
+    void pagesInIdOrderByPartition() {
+        var repository = new GreetingRepositoryInMemory();
+        var created = repository.createAll(List.of(
+                new Greeting(1, "companyA", "a"),
+                new Greeting(2, "companyB", "b"),
+                new Greeting(1, "companyA", "c"),
+                new Greeting(1, "companyB", "d")
+        ));
+
+        assertEquals(created.subList(1, 3), repository.listAfter(created.get(0).id(), 2));
+        assertEquals(List.of(created.get(0), created.get(2)), repository.listByCompany("companyA", 0, 10));
+        assertEquals(List.of(created.get(2), created.get(3)), repository.listByAuthor(1, created.get(0).id(), 10));
+        assertTrue(repository.listByCompany("companyC", 0, 10).isEmpty());
+
+        assertEquals(3, repository.deleteByAuthor(1).size());
+        assertEquals(List.of(created.get(1)), repository.listAfter(0, 10));
+        assertTrue(repository.listByCompany("companyA", 0, 10).isEmpty());
+    }
+
+    @Test
+    void readersNeverSeeHalfABatch() throws Exception {
+        var repository = new GreetingRepositoryInMemory();
+        var batch = new ArrayList<Greeting>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(new Greeting(1, "companyA", "hej " + i));
+        }
+        var done = new AtomicBoolean();
+
+        try (var executor = Executors.newFixedThreadPool(3)) {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(executor.submit(() -> {
+                    while (!done.get()) {
+                        var greetings = repository.list();
+                        var count = 0;
+                        for (var ignored : greetings) {
+                            count++;
+                        }
+                        assertEquals(greetings.size(), count);
+                        assertEquals(0, count % batch.size());
+                        assertEquals(0, repository.listByAuthor(1, 0, Integer.MAX_VALUE).size() % batch.size());
+                    }
+                }));
+            }
+            executor.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    var created = repository.createAll(batch);
+                    if (i % 2 == 0) {
+                        repository.deleteByAuthor(1);
+                    }
+                    assertEquals(batch.size(), created.size());
+                }
+                done.set(true);
+            }).get();
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        }
+    }
+
+}
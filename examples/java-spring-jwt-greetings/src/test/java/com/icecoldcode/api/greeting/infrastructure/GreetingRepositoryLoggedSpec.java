@@ -0,0 +1,132 @@
+package com.icecoldcode.api.greeting.infrastructure;
+
+import com.icecoldcode.api.greeting.Greeting;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GreetingRepositoryLoggedSpec {
+
+    @TempDir
+    Path directory;
+
+    // left open to simulate a crash, closed once the test has reopened the directory
+    private final List<GreetingRepositoryLogged> crashed = new ArrayList<>();
+
+    @AfterEach
+    void closeCrashed() throws IOException {
+        for (var repository : crashed) {
+            repository.close();
+        }
+    }
+
+    @Test
+    void keepsGreetingsAcrossRestarts() throws IOException {
+        long first;
+        long second;
+        try (var repository = open()) {
+            first = repository.create(new Greeting(1, "companyA", "hej"));
+            second = repository.create(new Greeting(2, "companyA", "hallå"));
+            repository.delete(first);
+        }
+
+        try (var repository = open()) {
+            assertTrue(repository.get(first).isEmpty());
+            assertEquals(new Greeting(2, "companyA", "hallå"), repository.get(second).orElseThrow().value());
+            assertTrue(repository.create(new Greeting(1, "companyA", "igen")) > second);
+        }
+    }
+
+    @Test
+    void keepsBatchesAcrossRestarts() throws IOException {
+        var repository = openToCrash();
+        var ids = repository.createAll(List.of(
+                new Greeting(1, "companyA", "ett"),
+                new Greeting(2, "companyB", "två")
+        )).stream().map(greeting -> greeting.id()).toList();
+        // no close, as after a crash
+
+        try (var reopened = open()) {
+            assertEquals(ids.get(0) + 1, ids.get(1));
+            assertEquals(new Greeting(2, "companyB", "två"), reopened.get(ids.get(1)).orElseThrow().value());
+            assertEquals(ids.get(1) + 1, reopened.create(new Greeting(1, "companyA", "tre")));
+        }
+    }
+
+    @Test
+    void replaysLogWrittenAfterSnapshot() throws IOException {
+        var repository = openToCrash();
+        var first = repository.create(new Greeting(1, "companyA", "hej"));
+        repository.snapshot();
+        var second = repository.create(new Greeting(1, "companyA", "då"));
+        repository.delete(first);
+        // no close, as after a crash
+
+        try (var reopened = open()) {
+            assertEquals(List.of(second), reopened.list().stream().map(greeting -> greeting.id()).toList());
+        }
+    }
+
+    @Test
+    void snapshotDropsOlderLogs() throws IOException {
+        try (var repository = open()) {
+            repository.create(new Greeting(1, "companyA", "hej"));
+            repository.snapshot();
+        }
+
+        assertTrue(Files.exists(directory.resolve("greetings.snapshot")));
+        assertEquals(1, logFiles().size());
+    }
+
+    @Test
+    void ignoresTornRecordAtTail() throws IOException {
+        var repository = openToCrash();
+        var first = repository.create(new Greeting(1, "companyA", "hej"));
+        var second = repository.create(new Greeting(1, "companyA", "då"));
+
+        // flip a byte in the message of the last record
+        try (var channel = FileChannel.open(logFiles().get(0), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var log = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            var end = 8;
+            for (int i = 0; i < 2; i++) {
+                end += 8 + log.getInt(end);
+            }
+            log.put(end - 1, (byte) (log.get(end - 1) ^ 1));
+        }
+
+        try (var reopened = open()) {
+            assertTrue(reopened.get(first).isPresent());
+            assertTrue(reopened.get(second).isEmpty());
+            assertEquals(second, reopened.create(new Greeting(1, "companyA", "igen")));
+        }
+    }
+
+    private GreetingRepositoryLogged open() throws IOException {
+        return new GreetingRepositoryLogged(directory, Duration.ofHours(1), false);
+    }
+
+    private GreetingRepositoryLogged openToCrash() throws IOException {
+        var repository = open();
+        crashed.add(repository);
+        return repository;
+    }
+
+    private List<Path> logFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".log")).toList();
+        }
+    }
+
+}
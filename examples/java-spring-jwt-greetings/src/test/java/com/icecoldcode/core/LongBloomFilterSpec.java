@@ -0,0 +1,43 @@
+package com.icecoldcode.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongBloomFilterSpec {
+
+    @Test
+    void containsWhatWasAdded() {
+        var filter = new LongBloomFilter(1000, 0.01);
+        for (long key = 1; key <= 1000; key++) {
+            filter.add(key * 31);
+        }
+
+        for (long key = 1; key <= 1000; key++) {
+            assertTrue(filter.mightContain(key * 31));
+        }
+    }
+
+    @Test
+    void rarelyContainsWhatWasNotAdded() {
+        var filter = new LongBloomFilter(1000, 0.01);
+        for (long key = 1; key <= 1000; key++) {
+            filter.add(key);
+        }
+
+        var falsePositives = 0;
+        for (long key = 1_000_001; key <= 1_100_000; key++) {
+            if (filter.mightContain(key)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, falsePositives + " false positives in 100000");
+    }
+
+    @Test
+    void rejectsInvalidSizing() {
+        assertThrows(IllegalArgumentException.class, () -> new LongBloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new LongBloomFilter(10, 1));
+    }
+
+}
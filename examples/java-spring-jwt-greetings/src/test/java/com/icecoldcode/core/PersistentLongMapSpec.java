@@ -0,0 +1,78 @@
+package com.icecoldcode.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentLongMapSpec {
+
+    @Test
+    void behavesLikeASortedMap() {
+        var random = new Random(1);
+        for (long range : new long[]{50, 5_000, 1L << 40, Long.MAX_VALUE}) {
+            var expected = new TreeMap<Long, Long>();
+            var map = PersistentLongMap.<Long>empty();
+            for (int i = 0; i < 5_000; i++) {
+                var key = (long) (random.nextDouble() * range);
+                if (random.nextInt(3) == 0) {
+                    expected.remove(key);
+                    map = map.remove(key);
+                } else {
+                    expected.put(key, (long) i);
+                    map = map.put(key, (long) i);
+                }
+                assertEquals(expected.size(), map.size());
+            }
+
+            for (var entry : expected.entrySet()) {
+                assertEquals(entry.getValue(), map.get(entry.getKey()));
+            }
+            assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(map.values()));
+        }
+    }
+
+    @Test
+    void leavesEarlierVersionsAlone() {
+        var before = PersistentLongMap.<String>empty().put(1, "a").put(2, "b");
+
+        var after = before.put(3, "c").remove(1).put(2, "B");
+
+        assertEquals(List.of("a", "b"), new ArrayList<>(before.values()));
+        assertEquals(List.of("B", "c"), new ArrayList<>(after.values()));
+    }
+
+    @Test
+    void visitsKeysAfterAKeyInOrder() {
+        var map = PersistentLongMap.<Long>empty();
+        for (long key = 0; key < 3_000; key += 3) {
+            map = map.put(key, key);
+        }
+
+        List<Long> visited = new ArrayList<>();
+        map.forEachAfter(1_000, value -> {
+            visited.add(value);
+            return visited.size() < 4;
+        });
+        assertEquals(List.of(1_002L, 1_005L, 1_008L, 1_011L), visited);
+
+        visited.clear();
+        map.forEachAfter(-1, value -> visited.add(value) && visited.size() < 2);
+        assertEquals(List.of(0L, 3L), visited);
+
+        visited.clear();
+        map.forEachAfter(Long.MAX_VALUE, visited::add);
+        assertTrue(visited.isEmpty());
+    }
+
+    @Test
+    void rejectsNegativeKeys() {
+        assertThrows(IllegalArgumentException.class, () -> PersistentLongMap.empty().put(-1, "a"));
+        assertNull(PersistentLongMap.empty().get(-1));
+    }
+
+}
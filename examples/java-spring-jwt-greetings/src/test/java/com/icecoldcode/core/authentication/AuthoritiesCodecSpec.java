@@ -0,0 +1,43 @@
+package com.icecoldcode.core.authentication;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthoritiesCodecSpec {
+
+    @Test
+    void roundTripsThroughBits() {
+        var authorities = Set.of(
+                new SimpleGrantedAuthority("ROLE_ADMIN"),
+                new SimpleGrantedAuthority("ROLE_USER")
+        );
+
+        int bits = AuthoritiesCodec.toBits(authorities);
+
+        assertEquals(AuthoritiesCodec.ROLE_ADMIN | AuthoritiesCodec.ROLE_USER, bits);
+        assertEquals(authorities, AuthoritiesCodec.fromBits(bits));
+    }
+
+    @Test
+    void sharesAuthoritiesBetweenCalls() {
+        assertSame(
+                AuthoritiesCodec.fromBits(AuthoritiesCodec.ROLE_USER),
+                AuthoritiesCodec.fromString("ROLE_USER")
+        );
+    }
+
+    @Test
+    void ignoresRolesThatAreNotPermitted() {
+        assertEquals(
+                Set.of(new SimpleGrantedAuthority("ROLE_ADMIN")),
+                AuthoritiesCodec.fromString("ROLE_ADMIN ROLE_ROOT")
+        );
+        assertEquals(0, AuthoritiesCodec.toBits(Set.of(new SimpleGrantedAuthority("ROLE_ROOT"))));
+        assertTrue(AuthoritiesCodec.fromBits(1 << 30).isEmpty());
+    }
+
+}
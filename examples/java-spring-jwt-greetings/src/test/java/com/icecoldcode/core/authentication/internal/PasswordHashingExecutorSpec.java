@@ -0,0 +1,66 @@
+package com.icecoldcode.core.authentication.internal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorSpec {
+
+    private final PasswordHashingExecutor executor = new PasswordHashingExecutor(
+            1, 1, 7, new SimpleMeterRegistry()
+    );
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void returnsResultOfHashing() {
+        assertEquals("hashed", executor.run(() -> "hashed"));
+        assertEquals(1, executor.hashes());
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        var running = CompletableFuture.supplyAsync(() -> executor.run(() -> {
+            started.countDown();
+            await(release);
+            return "first";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        var queued = CompletableFuture.supplyAsync(() -> executor.run(() -> "second"));
+        while (executor.queueDepth() == 0) {
+            Thread.onSpinWait();
+        }
+
+        var rejected = assertThrows(
+                PasswordHashingOverloadedException.class,
+                () -> executor.run(() -> "third")
+        );
+        assertEquals(7, rejected.getRetryAfterSeconds());
+
+        release.countDown();
+        assertEquals("first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("second", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
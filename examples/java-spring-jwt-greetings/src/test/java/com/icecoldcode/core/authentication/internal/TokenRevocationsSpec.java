@@ -0,0 +1,86 @@
+package com.icecoldcode.core.authentication.internal;
+
+import com.icecoldcode.core.Clock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationsSpec {
+
+    private static final Instant NOW = Instant.ofEpochSecond(1_700_000_000);
+
+    private final Clock clock = Mockito.mock(Clock.class);
+    private final TokenRevocations revocations;
+
+    TokenRevocationsSpec() {
+        when(clock.now()).thenReturn(NOW);
+        revocations = new TokenRevocations(clock, 60, 100, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void revokesOnlyTheSession() {
+        revocations.revoke(principal(1, 10, NOW));
+
+        assertTrue(revocations.isRevoked(principal(1, 10, NOW.plusSeconds(1))));
+        assertFalse(revocations.isRevoked(principal(1, 11, NOW)));
+        assertFalse(revocations.isRevoked(principal(2, 12, NOW)));
+    }
+
+    @Test
+    void revokesOnlyTheTokenWithoutTokenId() {
+        revocations.revoke(principal(1, 0, NOW));
+
+        assertTrue(revocations.isRevoked(principal(1, 0, NOW)));
+        assertFalse(revocations.isRevoked(principal(1, 0, NOW.minusSeconds(1))));
+        assertFalse(revocations.isRevoked(principal(1, 10, NOW)));
+        assertFalse(revocations.isRevoked(principal(2, 0, NOW)));
+    }
+
+    @Test
+    void revokesEverySessionIssuedBeforeTheSecondOfTheRevocation() {
+        revocations.revokeAll(1);
+
+        assertTrue(revocations.isRevoked(principal(1, 10, NOW.minusSeconds(60))));
+        assertTrue(revocations.isRevoked(principal(1, 11, NOW.minusSeconds(1))));
+        assertFalse(revocations.isRevoked(principal(1, 12, NOW.plusSeconds(1))));
+        assertFalse(revocations.isRevoked(principal(2, 13, NOW.minusSeconds(1))));
+    }
+
+    @Test
+    void keepsSessionsIssuedInTheSecondOfTheRevocation() {
+        when(clock.now()).thenReturn(NOW.plusMillis(700));
+        revocations.revokeAll(1);
+
+        // iat has whole seconds only, a login right after the revocation reads as NOW
+        assertFalse(revocations.isRevoked(principal(1, 10, NOW)));
+        assertTrue(revocations.isRevoked(principal(1, 11, NOW.minusSeconds(1))));
+    }
+
+    @Test
+    void keepsRevocationsForATokenLifetime() {
+        revocations.revoke(principal(1, 10, NOW));
+
+        when(clock.now()).thenReturn(NOW.plus(Duration.ofMinutes(59)));
+        assertTrue(revocations.isRevoked(principal(1, 10, NOW)));
+
+        // past the lifetime of every token of the session
+        when(clock.now()).thenReturn(NOW.plus(Duration.ofMinutes(61)));
+        revocations.revoke(principal(2, 20, NOW.plus(Duration.ofMinutes(61))));
+        assertFalse(revocations.isRevoked(principal(1, 10, NOW)));
+
+        when(clock.now()).thenReturn(NOW.plus(Duration.ofMinutes(120)));
+        assertTrue(revocations.isRevoked(principal(2, 20, NOW)));
+    }
+
+    private static Principal principal(long userId, long tokenId, Instant issuedAt) {
+        return new Principal(userId, "companyA", 0, issuedAt, issuedAt.plus(Duration.ofMinutes(60)), tokenId);
+    }
+
+}
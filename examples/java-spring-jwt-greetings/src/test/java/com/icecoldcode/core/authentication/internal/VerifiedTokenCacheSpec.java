@@ -0,0 +1,83 @@
+package com.icecoldcode.core.authentication.internal;
+
+import com.icecoldcode.core.Clock;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+class VerifiedTokenCacheSpec {
+
+    private static final Instant NOW = Instant.ofEpochSecond(1_700_000_000);
+
+    private final Clock clock = Mockito.mock(Clock.class);
+    private final VerifiedTokenCache cache = new VerifiedTokenCache(clock, 2);
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    @Test
+    void verifiesTokenOnlyOnce() {
+        when(clock.now()).thenReturn(NOW);
+
+        cache.get("a", this::verify);
+        var principal = cache.get("a", this::verify);
+
+        assertTrue(principal.isPresent());
+        assertEquals(1, verifications.get());
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void verifiesAgainOnceExpired() {
+        when(clock.now()).thenReturn(NOW);
+        cache.get("a", this::verify);
+
+        when(clock.now()).thenReturn(NOW.plus(Duration.ofMinutes(2)));
+        cache.get("a", this::verify);
+
+        assertEquals(2, verifications.get());
+        assertEquals(0, cache.hits());
+    }
+
+    @Test
+    void doesNotCacheFailedVerifications() {
+        when(clock.now()).thenReturn(NOW);
+
+        cache.get("invalid", jwt -> Optional.empty());
+        cache.get("invalid", jwt -> Optional.empty());
+
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    void staysWithinMaximumSize() {
+        when(clock.now()).thenReturn(NOW);
+
+        cache.get("a", this::verify);
+        cache.get("b", this::verify);
+        cache.get("c", this::verify);
+
+        assertTrue(cache.size() <= 2);
+    }
+
+    private Optional<Principal> verify(String jwt) {
+        verifications.incrementAndGet();
+        return Optional.of(new Principal(
+                1,
+                "companyA",
+                Set.of(),
+                NOW,
+                NOW.plus(Duration.ofMinutes(1))
+        ));
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.icecoldcode.core.authentication.internal.infrastructure;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuthenticatedRoutesSpec {
+
+    private final AuthenticatedRoutes routes = AuthenticatedRoutes.of(
+            AuthenticatedRoutes.Route.any("/api"),
+            AuthenticatedRoutes.Route.exact("GET", "/auth"),
+            AuthenticatedRoutes.Route.under("DELETE", "/auth/users")
+    );
+
+    @Test
+    void matchesPathAndEverythingBelowIt() {
+        assertTrue(routes.matches("GET", "/api"));
+        assertTrue(routes.matches("POST", "/api/v1/greetings"));
+        assertFalse(routes.matches("GET", "/apis"));
+        assertFalse(routes.matches("GET", "/"));
+        assertFalse(routes.matches("GET", "/index.html"));
+    }
+
+    @Test
+    void matchesExactPathOnlyForItsMethod() {
+        assertTrue(routes.matches("GET", "/auth"));
+        assertFalse(routes.matches("POST", "/auth"));
+        assertFalse(routes.matches("GET", "/auth/users"));
+        assertTrue(routes.matches("DELETE", "/auth/users/1/sessions"));
+        assertFalse(routes.matches("POST", "/auth/users"));
+    }
+
+}
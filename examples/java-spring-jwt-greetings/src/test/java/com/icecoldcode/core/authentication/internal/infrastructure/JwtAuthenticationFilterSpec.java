@@ -0,0 +1,111 @@
+package com.icecoldcode.core.authentication.internal.infrastructure;
+
+import com.icecoldcode.core.Clock;
+import com.icecoldcode.core.Entity;
+import com.icecoldcode.core.authentication.AuthoritiesCodec;
+import com.icecoldcode.core.authentication.internal.AuthUser;
+import com.icecoldcode.core.authentication.internal.JwtService;
+import com.icecoldcode.core.authentication.internal.Principal;
+import com.icecoldcode.core.authentication.internal.PrincipalFactory;
+import com.icecoldcode.core.authentication.internal.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticationFilterSpec {
+
+    private static final Instant ISSUED_AT = Instant.ofEpochSecond(1_700_000_000);
+    private static final Principal PRINCIPAL = new Principal(
+            1, "companyA", AuthoritiesCodec.ROLE_USER, ISSUED_AT, ISSUED_AT.plus(Duration.ofMinutes(60)), 7
+    );
+
+    private final JwtService jwtService = Mockito.mock(JwtService.class);
+    private final Clock clock = Mockito.mock(Clock.class);
+    private final UserRepository userRepository = Mockito.mock(UserRepository.class);
+    private final PrincipalFactory principalFactory = Mockito.mock(PrincipalFactory.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwtAuthenticationFilter filter = new JwtAuthenticationFilter(
+            jwtService, clock, userRepository, principalFactory, meterRegistry, 60, 0.5
+    );
+
+    JwtAuthenticationFilterSpec() {
+        when(jwtService.principalFromCookie(any())).thenReturn(Optional.of(PRINCIPAL));
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void keepsTheCookieBeforeTheThreshold() throws Exception {
+        when(clock.now()).thenReturn(ISSUED_AT.plus(Duration.ofMinutes(30)).minusMillis(1));
+
+        var response = filter(new MockHttpServletResponse());
+
+        assertNull(response.getCookie("jwt"));
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(userRepository, never()).getById(Mockito.anyLong());
+        assertEquals(1, count("kept"));
+        assertEquals(0, count("reissued"));
+    }
+
+    @Test
+    void reissuesTheCookieFromTheUserAtTheThreshold() throws Exception {
+        var now = ISSUED_AT.plus(Duration.ofMinutes(30));
+        when(clock.now()).thenReturn(now);
+        var user = new Entity<>(1, new AuthUser("user", "hash", "companyA", AuthoritiesCodec.ROLE_USER));
+        var reissued = new Principal(1, "companyA", AuthoritiesCodec.ROLE_USER, now, now.plus(Duration.ofMinutes(60)), 7);
+        when(userRepository.getById(1)).thenReturn(Optional.of(user));
+        when(principalFactory.fromAuthUser(user, 7)).thenReturn(reissued);
+        when(jwtService.generateJwtCookie(reissued)).thenReturn(new Cookie("jwt", "reissued"));
+
+        var response = filter(new MockHttpServletResponse());
+
+        assertEquals("reissued", response.getCookie("jwt").getValue());
+        assertEquals(0, count("kept"));
+        assertEquals(1, count("reissued"));
+    }
+
+    @Test
+    void clearsTheCookieOfAUserThatIsGone() throws Exception {
+        when(clock.now()).thenReturn(ISSUED_AT.plus(Duration.ofMinutes(45)));
+        when(userRepository.getById(1)).thenReturn(Optional.empty());
+        when(jwtService.clearJwtCookie()).thenReturn(new Cookie("jwt", ""));
+
+        var response = filter(new MockHttpServletResponse());
+
+        assertEquals("", response.getCookie("jwt").getValue());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(0, count("reissued"));
+        assertEquals(1, count("cleared"));
+    }
+
+    private MockHttpServletResponse filter(MockHttpServletResponse response) throws Exception {
+        var request = new MockHttpServletRequest("GET", "/api/v1/greetings");
+        request.setCookies(new Cookie("jwt", "token"));
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("jwt.cookie").tag("outcome", outcome).counter().count();
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.icecoldcode.core.authentication.internal.infrastructure;
+
+import com.icecoldcode.core.Entity;
+import com.icecoldcode.core.authentication.internal.AuthUser;
+import com.icecoldcode.core.authentication.internal.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class UserRepositoryCachingSpec {
+
+    private final UserRepository delegate = Mockito.mock(UserRepository.class);
+    private final UserRepositoryCaching repository = new UserRepositoryCaching(
+            delegate, 100, Duration.ofMinutes(1)
+    );
+
+    @Test
+    void loadsUserOnlyOnce() {
+        when(delegate.getById(1)).thenReturn(Optional.of(createUser(1, "anna")));
+
+        repository.getById(1);
+        var user = repository.getById(1);
+
+        assertTrue(user.isPresent());
+        verify(delegate, times(1)).getById(1);
+        assertEquals(1, repository.byIdStats().hitCount());
+    }
+
+    @Test
+    void doesNotCacheMissingUsers() {
+        when(delegate.getById(1)).thenReturn(Optional.empty());
+
+        repository.getById(1);
+        repository.getById(1);
+
+        verify(delegate, times(2)).getById(1);
+    }
+
+    @Test
+    void loadsMissingUsersInOneBulkCall() {
+        when(delegate.getById(1)).thenReturn(Optional.of(createUser(1, "anna")));
+        when(delegate.getByIds(Set.of(2L, 3L))).thenReturn(Map.of(2L, createUser(2, "bert")));
+
+        repository.getById(1);
+        var users = repository.getByIds(List.of(1L, 2L, 3L));
+
+        assertEquals(Set.of(1L, 2L), users.keySet());
+        verify(delegate, times(1)).getByIds(any());
+    }
+
+    @Test
+    void saveInvalidatesCachedUser() {
+        when(delegate.getByEmail("anna")).thenReturn(Optional.of(createUser(1, "anna")));
+        when(delegate.save(any())).thenReturn(1L);
+
+        repository.getByEmail("anna");
+        repository.save(new AuthUser("anna", "", "companyA", Set.of()));
+        repository.getByEmail("anna");
+
+        verify(delegate, times(2)).getByEmail("anna");
+    }
+
+    private static Entity<AuthUser> createUser(long id, String username) {
+        return new Entity<>(id, new AuthUser(username, "", "companyA", Set.of()));
+    }
+
+}
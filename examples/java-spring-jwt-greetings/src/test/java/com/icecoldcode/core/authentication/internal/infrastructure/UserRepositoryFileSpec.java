@@ -0,0 +1,144 @@
+package com.icecoldcode.core.authentication.internal.infrastructure;
+
+import com.icecoldcode.core.authentication.internal.AuthUser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserRepositoryFileSpec {
+
+    @TempDir
+    Path directory;
+
+    private final List<UserRepositoryFile> crashed = new ArrayList<>();
+
+    @AfterEach
+    void closeCrashed() throws IOException {
+        for (var repository : crashed) {
+            repository.close();
+        }
+    }
+
+    @Test
+    void keepsUsersAcrossRestarts() throws IOException {
+        long id;
+        try (var repository = new UserRepositoryFile(directory)) {
+            id = repository.save(new AuthUser("anna", "hash", "companyA", Set.of("ROLE_ADMIN")));
+        }
+
+        try (var repository = new UserRepositoryFile(directory)) {
+            var user = repository.getByEmail("anna").orElseThrow();
+            assertEquals(id, user.id());
+            assertEquals("hash", user.value().getPassword());
+            assertEquals("companyA", user.value().getCompanyId());
+            assertTrue(user.value().isAdmin());
+            assertEquals("anna", repository.getById(id).orElseThrow().value().getUsername());
+        }
+    }
+
+    @Test
+    void findsUsersAfterIndexGrows() throws IOException {
+        try (var repository = new UserRepositoryFile(directory)) {
+            for (int i = 1; i <= 10_000; i++) {
+                assertEquals(i, repository.save(new AuthUser("user" + i, "", "companyA", Set.of())));
+            }
+
+            assertEquals(7_777, repository.getByEmail("user7777").orElseThrow().id());
+            assertTrue(repository.getByEmail("user10001").isEmpty());
+            assertEquals(Set.of(1L, 10_000L), repository.getByIds(List.of(1L, 10_000L, 10_001L)).keySet());
+        }
+    }
+
+    @Test
+    void latestUserWithEmailWins() throws IOException {
+        try (var repository = new UserRepositoryFile(directory)) {
+            repository.save(new AuthUser("anna", "old", "companyA", Set.of()));
+            var id = repository.save(new AuthUser("anna", "new", "companyA", Set.of()));
+
+            assertEquals(id, repository.getByEmail("anna").orElseThrow().id());
+        }
+    }
+
+    @Test
+    void indexesUsersSavedAfterTheLastCheckpointAgain() throws IOException {
+        var repository = openToCrash();
+        repository.save(new AuthUser("anna", "", "companyA", Set.of()));
+        repository.save(new AuthUser("berit", "", "companyA", Set.of()));
+        // no close, and the index slots never reached the disk
+        try (var channel = FileChannel.open(directory.resolve("users-email.idx"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate((int) channel.size() - 32), 32);
+        }
+
+        try (var reopened = new UserRepositoryFile(directory)) {
+            assertEquals(1, reopened.getByEmail("anna").orElseThrow().id());
+            assertEquals(2, reopened.getByEmail("berit").orElseThrow().id());
+        }
+    }
+
+    @Test
+    void countsSlotsThatReachedTheDiskBeforeACrashOnce() throws IOException {
+        var repository = openToCrash();
+        for (int i = 1; i <= 1_000; i++) {
+            repository.save(new AuthUser("user" + i, "", "companyA", Set.of()));
+        }
+        // no close, the slots are on disk but the header does not cover them
+
+        try (var reopened = new UserRepositoryFile(directory)) {
+            for (int i = 1_001; i <= 10_000; i++) {
+                reopened.save(new AuthUser("user" + i, "", "companyA", Set.of()));
+            }
+            assertEquals(500, reopened.getByEmail("user500").orElseThrow().id());
+            assertEquals(9_999, reopened.getByEmail("user9999").orElseThrow().id());
+        }
+        try (var channel = FileChannel.open(directory.resolve("users-email.idx"), StandardOpenOption.READ)) {
+            var usedSlots = ByteBuffer.allocate(8);
+            channel.read(usedSlots, 24);
+            assertEquals(10_000, usedSlots.flip().getLong());
+        }
+    }
+
+    @Test
+    void startsOverFilesLeftUnwrittenByACrashOnFirstStart() throws IOException {
+        Files.write(directory.resolve("users.dat"), new byte[256 << 16]);
+        Files.write(directory.resolve("users-email.idx"), new byte[64]);
+
+        try (var repository = new UserRepositoryFile(directory)) {
+            assertTrue(repository.getById(1).isEmpty());
+            repository.save(new AuthUser("anna", "", "companyA", Set.of()));
+        }
+
+        try (var repository = new UserRepositoryFile(directory)) {
+            assertEquals(1, repository.getByEmail("anna").orElseThrow().id());
+        }
+    }
+
+    @Test
+    void rejectsTooLongFields() throws IOException {
+        try (var repository = new UserRepositoryFile(directory)) {
+            assertThrows(
+                    IllegalArgumentException.class,
+                    () -> repository.save(new AuthUser("a".repeat(200), "", "companyA", Set.of()))
+            );
+            assertTrue(repository.getById(1).isEmpty());
+        }
+    }
+
+    private UserRepositoryFile openToCrash() throws IOException {
+        var repository = new UserRepositoryFile(directory);
+        crashed.add(repository);
+        return repository;
+    }
+
+}